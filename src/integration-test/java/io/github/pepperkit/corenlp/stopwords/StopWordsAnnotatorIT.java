@@ -94,4 +94,36 @@ class StopWordsAnnotatorIT {
 
         assertThat(result).containsExactlyInAnyOrder(expectedWords);
     }
+
+    /**
+     * Scenario: The stop words are filtered out by their surface form in a pipeline without POS tagger and lemmatizer
+     *     Given I have the text
+     *     And the stop words are provided as a list
+     *     When I launch text processing using StanfordCoreNLP pipeline with only tokenize, ssplit and StopWordsAnnotator
+     *     And set it to match the stop words on the words only
+     *     Then I should be able to filter out the stop words from the text
+     */
+    @Test
+    public void annotatorWorksWithoutPosAndLemmaIfMatchingOnWords() {
+        final String text = "Once upon a time there was a dear little girl";
+
+        final Properties props = new Properties();
+        props.put("annotators", "tokenize, ssplit, stopwords");
+        props.setProperty("customAnnotatorClass.stopwords", "io.github.pepperkit.corenlp.stopwords.StopWordsAnnotator");
+        props.setProperty("stopwords.customList", "once,upon,a,there,was");
+        props.setProperty("stopwords.matchOn", "word");
+
+        StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+        Annotation document = new Annotation(text);
+        pipeline.annotate(document);
+
+        List<String> result = new ArrayList<>();
+        for (CoreLabel token : document.get(CoreAnnotations.TokensAnnotation.class)) {
+            if (!token.get(StopWordsAnnotator.class)) {
+                result.add(token.word());
+            }
+        }
+
+        assertThat(result).containsExactly("time", "dear", "little", "girl");
+    }
 }
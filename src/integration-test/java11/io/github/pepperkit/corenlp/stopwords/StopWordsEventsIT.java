@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StopWordsEventsIT {
+    private static final String EVENTS_PREFIX = "io.github.pepperkit.corenlp.stopwords.";
+
+    /**
+     * Scenario: The flight recorder events of the annotator are recorded on Java 11 and later
+     *     Given I record the events of the annotator with Java Flight Recorder
+     *     When I launch text processing using StanfordCoreNLP pipeline with StopWordsAnnotator from its multi-release JAR
+     *     Then the loading of the list, the building of its index and the annotation of the document are recorded
+     */
+    @Test
+    public void eventsAreRecordedOnJava11AndLater() throws IOException {
+        final Path dump = Files.createTempFile("stopwords", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENTS_PREFIX + "ListLoad");
+            recording.enable(EVENTS_PREFIX + "IndexBuild");
+            recording.enable(EVENTS_PREFIX + "Annotate");
+            recording.start();
+
+            final Properties props = new Properties();
+            props.put("annotators", "tokenize, ssplit, stopwords");
+            props.setProperty("customAnnotatorClass.stopwords",
+                    "io.github.pepperkit.corenlp.stopwords.StopWordsAnnotator");
+            // a list no other test has loaded, so it is not taken from the lists shared by the annotators
+            props.setProperty("stopwords.customList", "once,upon,a," + UUID.randomUUID());
+            props.setProperty("stopwords.matchOn", "word");
+
+            StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+            pipeline.annotate(new Annotation("Once upon a time"));
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        try {
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            assertThat(events).extracting(event -> event.getEventType().getName())
+                    .contains(EVENTS_PREFIX + "ListLoad", EVENTS_PREFIX + "IndexBuild", EVENTS_PREFIX + "Annotate");
+            assertThat(events)
+                    .filteredOn(event -> event.getEventType().getName().equals(EVENTS_PREFIX + "Annotate"))
+                    .singleElement()
+                    .satisfies(event -> {
+                        assertThat(event.getInt("tokensCount")).isEqualTo(4);
+                        assertThat(event.getInt("stoppedCount")).isEqualTo(3);
+                    });
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StopWordsServiceVirtualThreadsIT {
+
+    /**
+     * Scenario: The documents of the service are annotated on virtual threads on Java 21 and later
+     *     Given I have the StopWordsService using the annotator from its multi-release JAR
+     *     When I submit a document to the service
+     *     Then the document is annotated on a virtual thread
+     */
+    @Test
+    public void documentsAreAnnotatedOnVirtualThreadsOnJava21AndLater() throws Exception {
+        final Properties props = new Properties();
+        props.setProperty("stopwords.customList", "the");
+        props.setProperty("stopwords.matchOn", "word");
+        final AtomicReference<Thread> annotatingThread = new AtomicReference<>();
+        final StopWordsAnnotator annotator = new StopWordsAnnotator(props) {
+            @Override
+            public void annotate(Annotation annotation) {
+                annotatingThread.set(Thread.currentThread());
+                super.annotate(annotation);
+            }
+        };
+
+        final CoreLabel token = new CoreLabel();
+        token.setWord("the");
+        final Annotation document = new Annotation("the");
+        document.set(CoreAnnotations.TokensAnnotation.class, Collections.singletonList(token));
+
+        try (StopWordsService service = new StopWordsService(annotator, 2)) {
+            assertThat(service.usesVirtualThreads()).isTrue();
+            service.submit(document).get(10, TimeUnit.SECONDS);
+        } finally {
+            annotator.unmount();
+        }
+
+        assertThat(annotatingThread.get().isVirtual()).isTrue();
+        assertThat(token.get(StopWordsAnnotator.class)).isTrue();
+    }
+}
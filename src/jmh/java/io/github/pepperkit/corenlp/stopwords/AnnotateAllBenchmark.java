@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the scaling of {@link StopWordsAnnotator#annotateAll} with the number of threads of its pool, on a batch
+ * of short pre-built documents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotateAllBenchmark {
+
+    private static final int VOCABULARY_SIZE = 100_000;
+    private static final int LIST_SIZE = 1000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    int threads;
+
+    @Param({"10000"})
+    int documents;
+
+    @Param({"200"})
+    int documentTokens;
+
+    private StopWordsAnnotator annotator;
+    private List<Annotation> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Properties props = BenchmarkDocuments.properties(BenchmarkDocuments.Rules.ALL, LIST_SIZE);
+        props.setProperty("stopwords.threads", String.valueOf(threads));
+        annotator = new StopWordsAnnotator(props);
+
+        batch = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            batch.add(BenchmarkDocuments.document(documentTokens, VOCABULARY_SIZE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        annotator.unmount();
+    }
+
+    @Benchmark
+    public List<Annotation> annotateAll() {
+        annotator.annotateAll(batch);
+        return batch;
+    }
+}
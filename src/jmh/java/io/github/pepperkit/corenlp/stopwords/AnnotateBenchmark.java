@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the throughput and allocation of {@link StopWordsAnnotator#annotate(Annotation)} on pre-built documents.
+ * The score is reported per document; divide it (and gc.alloc.rate.norm of the gc profiler) by documentTokens to get
+ * the per token numbers. Only the rules including the list depend on its size, the other ones are measured by
+ * {@link AnnotateRulesBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotateBenchmark {
+
+    private static final int VOCABULARY_SIZE = 2_000_000;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int listSize;
+
+    @Param({"LIST", "ALL"})
+    String rules;
+
+    @Param({"100", "10000"})
+    int documentTokens;
+
+    private StopWordsAnnotator annotator;
+    private Annotation document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        annotator = new StopWordsAnnotator(BenchmarkDocuments.properties(
+                BenchmarkDocuments.Rules.valueOf(rules), listSize));
+        document = BenchmarkDocuments.document(documentTokens, VOCABULARY_SIZE);
+    }
+
+    @Benchmark
+    public Annotation annotate() {
+        annotator.annotate(document);
+        return document;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link StopWordsAnnotator#annotate(Annotation)} as {@link AnnotateBenchmark} does, with the rules which do
+ * not use the list of stop words, so its size is not a parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotateRulesBenchmark {
+
+    private static final int VOCABULARY_SIZE = 2_000_000;
+
+    @Param({"POS", "LENGTH"})
+    String rules;
+
+    @Param({"100", "10000"})
+    int documentTokens;
+
+    private StopWordsAnnotator annotator;
+    private Annotation document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        annotator = new StopWordsAnnotator(BenchmarkDocuments.properties(BenchmarkDocuments.Rules.valueOf(rules), 0));
+        document = BenchmarkDocuments.document(documentTokens, VOCABULARY_SIZE);
+    }
+
+    @Benchmark
+    public Annotation annotate() {
+        annotator.annotate(document);
+        return document;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+
+/**
+ * Generates synthetic, but realistically distributed, pre-annotated documents and annotator configurations, so the
+ * benchmarks measure the stop words annotator only, and not the tokenizer, tagger or lemmatizer.
+ */
+final class BenchmarkDocuments {
+
+    /** Configured rules of the benchmarked annotator. */
+    enum Rules {
+        LIST, POS, LENGTH, ALL
+    }
+
+    static final String STOP_POS_CATEGORIES = "DT,IN,CC,PRP,PRP$,MD,EX,WDT";
+
+    private static final String[] SYLLABLES = {
+        "ka", "lo", "mi", "tur", "sen", "da", "pe", "ro", "vi", "nu", "sha", "gle",
+        "bra", "ti", "ex", "on", "ul", "mar", "fe", "zo", "qui", "ha", "ne", "ost"
+    };
+
+    private static final String[] TAGS = {
+        "NN", "DT", "IN", "VB", "JJ", "NNS", "CC", "RB", "PRP", "VBD", "NNP", "VBZ", "MD", "TO", "VBG", "WDT"
+    };
+
+    private static final long SEED = 42L;
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Returns a deterministic pseudo-word, unique for every rank.
+     * @param rank frequency rank of the word in the synthetic language
+     * @return the word
+     */
+    static String word(int rank) {
+        StringBuilder sb = new StringBuilder();
+        int n = rank;
+        do {
+            sb.append(SYLLABLES[n % SYLLABLES.length]);
+            n /= SYLLABLES.length;
+        } while (n > 0);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the most frequent words of the synthetic language.
+     * @param size number of words
+     * @return the words
+     */
+    static List<String> stopList(int size) {
+        List<String> words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            words.add(word(i));
+        }
+        return words;
+    }
+
+    /**
+     * Returns the annotator properties for the rules combination.
+     * @param rules rules to configure
+     * @param stopListSize size of the list of stop words, used by the list rule
+     * @return properties of the annotator
+     */
+    static Properties properties(Rules rules, int stopListSize) {
+        Properties props = new Properties();
+        if (rules == Rules.LIST || rules == Rules.ALL) {
+            props.setProperty("stopwords.customList", String.join(",", stopList(stopListSize)));
+        }
+        if (rules == Rules.POS || rules == Rules.ALL) {
+            props.setProperty("stopwords.withPosCategories", STOP_POS_CATEGORIES);
+        }
+        if (rules == Rules.LENGTH || rules == Rules.ALL) {
+            props.setProperty("stopwords.shorterThan", "3");
+            props.setProperty("stopwords.withLemmasShorterThan", "3");
+        }
+        return props;
+    }
+
+    /**
+     * Creates a document of tokens drawn from a Zipf-like distribution over the vocabulary, with the word, lemma
+     * and POS tag set, as if the document went through tokenize, ssplit, pos and lemma annotators.
+     * @param tokensCount number of tokens in the document
+     * @param vocabularySize number of distinct words in the synthetic language
+     * @return the document
+     */
+    static Annotation document(int tokensCount, int vocabularySize) {
+        return document(tokensCount, vocabularySize, SEED);
+    }
+
+    /**
+     * Creates a document as {@link #document(int, int)} does, drawing the tokens with the seed, so the documents of
+     * different seeds have different tokens.
+     * @param tokensCount number of tokens in the document
+     * @param vocabularySize number of distinct words in the synthetic language
+     * @param seed seed of the random tokens
+     * @return the document
+     */
+    static Annotation document(int tokensCount, int vocabularySize, long seed) {
+        Random random = new Random(seed);
+        List<CoreLabel> tokens = new ArrayList<>(tokensCount);
+        final double logVocabularySize = Math.log(vocabularySize);
+        for (int i = 0; i < tokensCount; i++) {
+            // log-uniform ranks approximate the Zipf distribution of natural language
+            int rank = (int) Math.exp(random.nextDouble() * logVocabularySize) - 1;
+            String lemma = word(rank);
+            CoreLabel token = new CoreLabel();
+            token.setWord(random.nextInt(8) == 0 ? capitalize(lemma) : lemma);
+            token.setLemma(lemma);
+            token.setTag(TAGS[rank % TAGS.length]);
+            token.setIndex(i + 1);
+            tokens.add(token);
+        }
+        Annotation document = new Annotation("");
+        document.set(CoreAnnotations.TokensAnnotation.class, tokens);
+        return document;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares hashing the case-folded words of {@link CaseFolding} (with and without the NFKC normalization) with hashing
+ * the words lower-cased by {@link String#toLowerCase(Locale)}. The English corpus has ASCII words only, every other
+ * word of the mixed-script corpus is Cyrillic, Greek, accented Latin or CJK.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CaseFoldingBenchmark {
+
+    private static final int WORDS = 1024;
+
+    private static final String[] NON_ASCII = {
+        "Москва", "ПРИВЕТ", "слово", "Αθήνα", "ΟΔΟΣ", "λόγος", "Über", "straße", "Ålesund", "Çok", "東京", "言葉",
+    };
+
+    @Param({"english", "mixed"})
+    String corpus;
+
+    @Param({"toLowerCase", "fold", "foldNfkc"})
+    String folding;
+
+    private ToIntFunction<String> hash;
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (folding) {
+            case "toLowerCase":
+                hash = word -> word.toLowerCase(Locale.ROOT).hashCode();
+                break;
+            case "fold":
+                hash = CaseFolding::hash;
+                break;
+            case "foldNfkc":
+                hash = word -> CaseFolding.hash(CaseFolding.normalize(word));
+                break;
+            default:
+                throw new IllegalArgumentException(folding);
+        }
+
+        Random random = new Random(42L);
+        words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            String word = "mixed".equals(corpus) && i % 2 == 1
+                    ? NON_ASCII[random.nextInt(NON_ASCII.length)]
+                    : BenchmarkDocuments.word(random.nextInt(10_000));
+            words[i] = i % 4 == 0 ? word.toUpperCase(Locale.ROOT) : word;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public int hash() {
+        int h = 0;
+        for (String word : words) {
+            h += hash.applyAsInt(word);
+        }
+        return h;
+    }
+}
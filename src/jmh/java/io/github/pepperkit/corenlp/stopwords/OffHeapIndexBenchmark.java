@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the index of a very large list kept in the heap (`hash`) with the one kept outside of it (`offheap`). Along
+ * with the lookup time, the heap and the off-heap memory retained by the index, and the duration of a full garbage
+ * collection with the index alive, are printed when the index is built. Half of the looked up words are in the list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx6g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Benchmark)
+public class OffHeapIndexBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10000000"})
+    int listSize;
+
+    @Param({"hash", "offheap"})
+    String index;
+
+    private StopWordIndex stopwords;
+    private String[] lookups;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirectMemory();
+        List<String> words = BenchmarkDocuments.stopList(listSize);
+        Random random = new Random(42L);
+        lookups = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = i % 2 == 0
+                    ? words.get(random.nextInt(listSize))
+                    : BenchmarkDocuments.word(listSize + random.nextInt(listSize));
+        }
+
+        switch (index) {
+            case "hash":
+                stopwords = new CaseInsensitiveStringSet(words);
+                break;
+            case "offheap":
+                stopwords = CompiledStopWordIndex.wrap(CompiledStopWordIndex.compile(words, false, true), false);
+                break;
+            default:
+                throw new IllegalArgumentException(index);
+        }
+        words = null;
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirectMemory() - directBefore;
+        long gcStart = System.nanoTime();
+        System.gc();
+        long gcMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - gcStart);
+        System.out.printf("%n%s index of %d words: heap %d MB, off-heap %d MB, full GC %d ms%n",
+                index, stopwords.size(), heap >> 20, direct >> 20, gcMillis);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirectMemory() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int lookup() {
+        int found = 0;
+        for (String word : lookups) {
+            if (stopwords.containsIgnoreCase(word)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
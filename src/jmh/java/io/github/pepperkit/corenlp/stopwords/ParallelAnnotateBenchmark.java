@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link StopWordsAnnotator#annotate(Annotation)} of a single long document, sequentially (the threshold of 0)
+ * and split into the chunks decided in parallel by the pool of `threads` threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelAnnotateBenchmark {
+
+    private static final int VOCABULARY_SIZE = 100_000;
+    private static final int LIST_SIZE = 1000;
+
+    @Param({"0", "10000"})
+    int parallelThreshold;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"200000"})
+    int documentTokens;
+
+    private StopWordsAnnotator annotator;
+    private Annotation document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Properties props = BenchmarkDocuments.properties(BenchmarkDocuments.Rules.ALL, LIST_SIZE);
+        props.setProperty("stopwords.parallel.threshold", String.valueOf(parallelThreshold));
+        props.setProperty("stopwords.threads", String.valueOf(threads));
+        annotator = new StopWordsAnnotator(props);
+        document = BenchmarkDocuments.document(documentTokens, VOCABULARY_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        annotator.unmount();
+    }
+
+    @Benchmark
+    public Annotation annotate() {
+        annotator.annotate(document);
+        return document;
+    }
+}
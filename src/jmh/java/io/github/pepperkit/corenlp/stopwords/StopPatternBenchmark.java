@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the compiled automaton of the stop patterns with checking the words against every {@link Pattern} in turn.
+ * The words are the syllable-based words of the documents, with every eighth one a number, a punctuation, a hashtag
+ * or a URL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StopPatternBenchmark {
+
+    private static final int WORDS = 1024;
+
+    private static final List<String> PATTERNS = Arrays.asList("^\\p{P}+$", "^\\d+$", "^[\\d\\p{Punct}]+$", "^[#@]",
+            "^https?://", "^www\\.", "\\.(com|org|net)$", "^\\p{S}+$");
+
+    @Param({"1", "4", "8"})
+    int patterns;
+
+    @Param({"regex", "dfa"})
+    String matcher;
+
+    private Predicate<String> matches;
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> configured = PATTERNS.subList(0, patterns);
+        switch (matcher) {
+            case "regex":
+                List<Pattern> compiled = new ArrayList<>();
+                configured.forEach(p -> compiled.add(Pattern.compile(p)));
+                matches = word -> {
+                    for (Pattern pattern : compiled) {
+                        if (pattern.matcher(word).find()) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+                break;
+            case "dfa":
+                StopPatternAutomaton automaton = new StopPatternAutomaton(configured);
+                matches = automaton::matches;
+                break;
+            default:
+                throw new IllegalArgumentException(matcher);
+        }
+
+        Random random = new Random(42L);
+        String[] special = {"42", "1,000", "...", "--", "#nlp", "@pepperkit", "https://example.com", "www.example.org"};
+        words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = i % 8 == 0
+                    ? special[random.nextInt(special.length)]
+                    : BenchmarkDocuments.word(random.nextInt(10_000));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public int match() {
+        int matched = 0;
+        for (String word : words) {
+            if (matches.test(word)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
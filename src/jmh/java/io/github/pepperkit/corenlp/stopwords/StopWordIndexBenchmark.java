@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the lookup time of the stop words indexes with the {@link HashSet} of lower-cased words, which the
+ * annotator used originally. Half of the looked up words are in the list, and every other word is capitalized.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StopWordIndexBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    int listSize;
+
+    @Param({"hashset", "hash", "mphf"})
+    String index;
+
+    private Predicate<String> contains;
+    private String[] lookups;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> words = BenchmarkDocuments.stopList(listSize);
+        switch (index) {
+            case "hashset":
+                Set<String> set = new HashSet<>(words);
+                contains = word -> set.contains(word.toLowerCase());
+                break;
+            case "hash":
+                CaseInsensitiveStringSet caseInsensitiveSet = new CaseInsensitiveStringSet(words);
+                contains = caseInsensitiveSet::containsIgnoreCase;
+                break;
+            case "mphf":
+                PerfectHashStopWordIndex perfectHashIndex = new PerfectHashStopWordIndex(words);
+                contains = perfectHashIndex::containsIgnoreCase;
+                break;
+            default:
+                throw new IllegalArgumentException(index);
+        }
+
+        Random random = new Random(42L);
+        lookups = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String word = i % 2 == 0
+                    ? words.get(random.nextInt(listSize))
+                    : BenchmarkDocuments.word(listSize + random.nextInt(listSize));
+            lookups[i] = i % 4 < 2 ? word : word.toUpperCase();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int lookup() {
+        int found = 0;
+        for (String word : lookups) {
+            if (contains.test(word)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Load test of {@link StopWordsService}: the benchmark threads act as the clients of a server, each submitting its
+ * documents one after another and waiting for them to be annotated, so the latency includes the time spent waiting for
+ * the service to accept a document. The sample time mode reports the percentiles of the latency (p0.50, p0.99).
+ * Whether the documents run on virtual threads is printed at the start of the trial.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class StopWordsServiceBenchmark {
+
+    private static final int VOCABULARY_SIZE = 100_000;
+    private static final int LIST_SIZE = 1000;
+    private static final int DOCUMENTS_PER_CLIENT = 16;
+
+    @Param({"4", "32"})
+    int maxConcurrency;
+
+    @Param({"1000"})
+    int documentTokens;
+
+    private StopWordsAnnotator annotator;
+    private StopWordsService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        annotator = new StopWordsAnnotator(BenchmarkDocuments.properties(BenchmarkDocuments.Rules.ALL, LIST_SIZE));
+        service = new StopWordsService(annotator, maxConcurrency);
+        System.out.printf("%nservice of %d documents at once, virtual threads: %b%n", maxConcurrency,
+                service.usesVirtualThreads());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+        annotator.unmount();
+    }
+
+    /**
+     * Documents of a client, which are not shared with the other clients.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private Annotation[] documents;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(StopWordsServiceBenchmark benchmark) {
+            documents = new Annotation[DOCUMENTS_PER_CLIENT];
+            for (int i = 0; i < DOCUMENTS_PER_CLIENT; i++) {
+                documents[i] = BenchmarkDocuments.document(benchmark.documentTokens, VOCABULARY_SIZE);
+            }
+        }
+
+        Annotation nextDocument() {
+            final Annotation document = documents[next];
+            next = (next + 1) % DOCUMENTS_PER_CLIENT;
+            return document;
+        }
+    }
+
+    @Benchmark
+    public Annotation request(Client client) throws InterruptedException {
+        return service.submit(client.nextDocument()).join();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link StopWordsAnnotator#annotate(Annotation)} with all the rules, without and with the cache of the
+ * decisions (`stopwords.cache.size`). The documents are different, so the cache is only hit by the frequent tokens, as
+ * in a real corpus; the hit ratio is printed at the end of the trial. The score is reported per document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerdictCacheBenchmark {
+
+    private static final int VOCABULARY_SIZE = 2_000_000;
+    private static final int DOCUMENTS = 1024;
+    private static final int LIST_SIZE = 100_000;
+
+    @Param({"0", "4096", "65536", "1048576"})
+    int cacheSize;
+
+    @Param({"1000"})
+    int documentTokens;
+
+    private StopWordsAnnotator annotator;
+    private Annotation[] documents;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Properties props = BenchmarkDocuments.properties(BenchmarkDocuments.Rules.ALL, LIST_SIZE);
+        props.setProperty("stopwords.cache.size", String.valueOf(cacheSize));
+        annotator = new StopWordsAnnotator(props);
+        documents = new Annotation[DOCUMENTS];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documents[i] = BenchmarkDocuments.document(documentTokens, VOCABULARY_SIZE, i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%ncache of %d decisions: %s%n", cacheSize, annotator.cacheStats());
+        annotator.unmount();
+    }
+
+    @Benchmark
+    public Annotation annotate() {
+        Annotation document = documents[next];
+        next = (next + 1) % DOCUMENTS;
+        annotator.annotate(document);
+        return document;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records how often every rule of a {@link RuleChain} stops the tokens it evaluates, and reorders the chain once per
+ * window of tokens, so the rules with the lowest cost per stopped token go first. The counters of the previous windows
+ * are halved at every reordering, which makes the statistics follow the recent documents.
+ */
+final class AdaptiveRuleOrdering {
+
+    /** Hit rate assumed for a rule, which has not been evaluated yet. */
+    private static final double UNKNOWN_HIT_RATE = 0.5;
+
+    /** Lower bound of the hit rate, so the rules which never stop a token are still ordered by their cost. */
+    private static final double MIN_HIT_RATE = 1e-6;
+
+    private final int windowSize;
+    private final long[] evaluations = new long[StopWordRule.Kind.values().length];
+    private final long[] hits = new long[StopWordRule.Kind.values().length];
+    private long tokensInWindow;
+
+    /**
+     * Creates the statistics holder.
+     * @param windowSize number of tokens after which the chain is reordered
+     */
+    AdaptiveRuleOrdering(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Adaptive ordering window should be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Accumulates the results of annotating a document and reorders the chain if the window is complete.
+     * @param chain the chain, which annotated the document
+     * @param matches histogram of {@link RuleChain#firstMatch} results, shifted by one: {@code matches[0]} is the
+     *                number of not stopped tokens, {@code matches[i + 1]} is the number of tokens stopped by the rule
+     *                at position {@code i}
+     * @return the chain to use for the next documents
+     */
+    synchronized RuleChain record(RuleChain chain, int[] matches) {
+        // the tokens not stopped, or stopped by a later rule, were evaluated by every rule before it
+        long evaluated = matches[0];
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            evaluated += matches[i + 1];
+            final int kind = chain.get(i).kind().ordinal();
+            evaluations[kind] += evaluated;
+            hits[kind] += matches[i + 1];
+        }
+        tokensInWindow += evaluated;
+
+        if (tokensInWindow < windowSize) {
+            return chain;
+        }
+        tokensInWindow = 0;
+        RuleChain reordered = reorder(chain);
+        for (int i = 0; i < evaluations.length; i++) {
+            evaluations[i] >>= 1;
+            hits[i] >>= 1;
+        }
+        return reordered;
+    }
+
+    private RuleChain reorder(RuleChain chain) {
+        List<StopWordRule> rules = new ArrayList<>(chain.size());
+        for (int i = 0; i < chain.size(); i++) {
+            rules.add(chain.get(i));
+        }
+        // for a chain of alternatives the expected cost is minimal when the rules are sorted by cost / hit rate
+        rules.sort(Comparator.comparingDouble(this::costPerHit));
+        return chain.reorder(rules);
+    }
+
+    private double costPerHit(StopWordRule rule) {
+        final int kind = rule.kind().ordinal();
+        final double hitRate = evaluations[kind] == 0
+                ? UNKNOWN_HIT_RATE
+                : (double) hits[kind] / evaluations[kind];
+        return rule.kind().cost() / Math.max(hitRate, MIN_HIT_RATE);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Flight recorder event of annotating a document. This is the version for Java 8, which has no flight recorder API,
+ * and records nothing; the multi-release JAR replaces it with a JFR event on Java 11 and later.
+ */
+final class AnnotateEvent {
+
+    private static final AnnotateEvent NONE = new AnnotateEvent();
+
+    private AnnotateEvent() {
+    }
+
+    /**
+     * Starts the event, before the document is annotated.
+     * @return the started event
+     */
+    static AnnotateEvent start() {
+        return NONE;
+    }
+
+    /**
+     * Ends the event and records it, if the recording is enabled.
+     * @param tokensCount number of the tokens of the document
+     * @param stoppedCount number of the stopped tokens
+     */
+    void finish(int tokensCount, int stoppedCount) {
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.text.Normalizer;
+
+/**
+ * Case folding shared by all the stop words indexes: the words are folded identically when a list is loaded and when
+ * the tokens are looked up, and the folded words are hashed in the same way by every index.
+ * <p>
+ * The characters of the alphabetic scripts (ASCII, Latin, Greek, Cyrillic, Armenian, Hebrew and Arabic, up to U+07FF)
+ * are folded with a table lookup. The other characters are folded per code point, so the surrogate pairs are folded as
+ * a whole. Either way the Unicode simple case folding is used, which is independent of the default locale:
+ * {@code toLowerCase(toUpperCase(c))} maps all the case variants of a character to one of them (e.g. the final sigma to
+ * sigma, the long s to s), except for the Turkish dotted capital I and dotless small i, which are kept as they are, as
+ * the simple folding does. The folding never changes the number of UTF-16 characters of a word, so the folded words
+ * are compared character by character.
+ */
+final class CaseFolding {
+
+    private static final int ASCII = 0x80;
+    private static final int TABLE_SIZE = 0x800;
+    private static final char[] FOLDED = new char[TABLE_SIZE];
+
+    private static final int CAPITAL_I_WITH_DOT = 0x0130;
+    private static final int SMALL_DOTLESS_I = 0x0131;
+
+    static {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            FOLDED[c] = (char) simpleFold(c);
+        }
+    }
+
+    private CaseFolding() {
+    }
+
+    /**
+     * Folds the case of a single code point.
+     * @param codePoint code point to fold
+     * @return the folded code point
+     */
+    static int foldCodePoint(int codePoint) {
+        return codePoint < TABLE_SIZE ? FOLDED[codePoint] : simpleFold(codePoint);
+    }
+
+    private static int simpleFold(int codePoint) {
+        if (codePoint == CAPITAL_I_WITH_DOT || codePoint == SMALL_DOTLESS_I) {
+            return codePoint;
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Folds the case of a single character, which is not a part of a surrogate pair.
+     * @param c character to fold
+     * @return the folded character
+     */
+    static char fold(char c) {
+        return c < TABLE_SIZE ? FOLDED[c] : (char) simpleFold(c);
+    }
+
+    /**
+     * Returns the folded character of the word at the index: the character itself folded, or the part of the folded
+     * code point of the surrogate pair, which the character belongs to.
+     * @param word word to fold
+     * @param index index of the character
+     * @return the folded character
+     */
+    static char foldedCharAt(CharSequence word, int index) {
+        final char c = word.charAt(index);
+        if (c < TABLE_SIZE) {
+            return FOLDED[c];
+        }
+        if (Character.isHighSurrogate(c) && index + 1 < word.length()) {
+            final char low = word.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.highSurrogate(foldCodePoint(Character.toCodePoint(c, low)));
+            }
+        } else if (Character.isLowSurrogate(c) && index > 0) {
+            final char high = word.charAt(index - 1);
+            if (Character.isHighSurrogate(high)) {
+                return Character.lowSurrogate(foldCodePoint(Character.toCodePoint(high, c)));
+            }
+        }
+        return fold(c);
+    }
+
+    /**
+     * Returns the folded character of the word held in a range of the array, see
+     * {@link #foldedCharAt(CharSequence, int)}.
+     * @param chars array holding the word
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @param index index of the character in the word
+     * @return the folded character
+     */
+    static char foldedCharAt(char[] chars, int offset, int length, int index) {
+        final char c = chars[offset + index];
+        if (c < TABLE_SIZE) {
+            return FOLDED[c];
+        }
+        if (Character.isHighSurrogate(c) && index + 1 < length) {
+            final char low = chars[offset + index + 1];
+            if (Character.isLowSurrogate(low)) {
+                return Character.highSurrogate(foldCodePoint(Character.toCodePoint(c, low)));
+            }
+        } else if (Character.isLowSurrogate(c) && index > 0) {
+            final char high = chars[offset + index - 1];
+            if (Character.isHighSurrogate(high)) {
+                return Character.lowSurrogate(foldCodePoint(Character.toCodePoint(high, c)));
+            }
+        }
+        return fold(c);
+    }
+
+    /**
+     * Returns the folded copy of the word.
+     * @param word word to fold
+     * @return the folded word
+     */
+    static String fold(CharSequence word) {
+        final char[] folded = new char[word.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = foldedCharAt(word, i);
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Normalizes the word to the NFKC form, so the compatibility variants of the characters (e.g. the full-width
+     * letters or the ligatures) are looked up as the characters they stand for. The ASCII words are normalized already
+     * and returned as they are.
+     * @param word word to normalize
+     * @return the normalized word
+     */
+    static CharSequence normalize(CharSequence word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) >= ASCII) {
+                return Normalizer.normalize(word, Normalizer.Form.NFKC);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Hashes the folded form of the word, without allocating it.
+     * @param word word to hash
+     * @return the hash of the folded word
+     */
+    static int hash(CharSequence word) {
+        int h = 0;
+        for (int i = 0; i < word.length(); i++) {
+            h = 31 * h + foldedCharAt(word, i);
+        }
+        // spread the higher bits downwards, since only the lower bits select the slot
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Hashes the folded form of the word held in a range of the array, the same way as {@link #hash(CharSequence)}.
+     * @param chars array holding the word
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @return the hash of the folded word
+     */
+    static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + foldedCharAt(chars, offset, length, i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Computes a 64-bit hash of the folded form of the word, without allocating it.
+     * @param word word to hash
+     * @return the 64-bit hash of the folded word
+     */
+    static long hash64(CharSequence word) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            h ^= foldedCharAt(word, i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Computes a 64-bit hash of the folded form of the word held in a range of the array, the same way as
+     * {@link #hash64(CharSequence)}.
+     * @param chars array holding the word
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @return the 64-bit hash of the folded word
+     */
+    static long hash64(char[] chars, int offset, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h ^= foldedCharAt(chars, offset, length, i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Scrambles the bits of the value (the finalizer of MurmurHash3), so every input bit affects every output bit.
+     * @param value value to scramble
+     * @return the scrambled value
+     */
+    static long mix64(long value) {
+        long z = value;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Compares the already folded word with the folded form of another word, without allocating it.
+     * @param folded folded word
+     * @param word word to fold and compare
+     * @return true if the folded words are equal
+     */
+    static boolean equalsFolded(String folded, CharSequence word) {
+        final int length = folded.length();
+        if (length != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (folded.charAt(i) != foldedCharAt(word, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the already folded word with the folded form of another word held in a range of the array.
+     * @param folded folded word
+     * @param chars array holding the word to fold and compare
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @return true if the folded words are equal
+     */
+    static boolean equalsFolded(String folded, char[] chars, int offset, int length) {
+        if (folded.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (folded.charAt(i) != foldedCharAt(chars, offset, length, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of strings, which is looked up case-insensitively directly on a {@link CharSequence}.
+ * The case is folded character by character during hashing and comparison, so a lookup does not allocate
+ * a lower-cased copy of the word. The elements are stored (and iterated) in their lower-cased form.
+ */
+final class CaseInsensitiveStringSet extends AbstractSet<String> implements StopWordIndex {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final String[] keys;
+    private final int[] hashes;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Creates a new set, containing the lower-cased versions of the provided words.
+     * @param words words to put into the set
+     */
+    CaseInsensitiveStringSet(Collection<String> words) {
+        int capacity = tableSizeFor(words.size());
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+
+        int count = 0;
+        for (String word : words) {
+            if (insert(CaseFolding.fold(word))) {
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        // keep the load factor at or below 0.5, so the probe sequences stay short
+        long required = Math.max(2L, (long) expectedSize * 2);
+        if (required > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many stop words: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private boolean insert(String folded) {
+        final int hash = CaseFolding.hash(folded);
+        int i = hash & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == hash && keys[i].equals(folded)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = folded;
+        hashes[i] = hash;
+        return true;
+    }
+
+    @Override
+    public boolean containsIgnoreCase(CharSequence word) {
+        final int hash = CaseFolding.hash(word);
+        int i = hash & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (hashes[i] == hash && CaseFolding.equalsFolded(key, word)) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsIgnoreCase(char[] chars, int offset, int length) {
+        final int hash = CaseFolding.hash(chars, offset, length);
+        int i = hash & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (hashes[i] == hash && CaseFolding.equalsFolded(key, chars, offset, length)) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof CharSequence && containsIgnoreCase((CharSequence) o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                int i = from;
+                while (i < keys.length && keys[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String key = keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+}
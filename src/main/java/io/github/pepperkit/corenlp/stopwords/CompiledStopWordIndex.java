@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.UnaryOperator;
+
+/**
+ * Stop words index stored in a flat binary layout, which is looked up directly in a {@link ByteBuffer}: either
+ * a file memory-mapped with {@link FileChannel#map}, or a buffer built in memory, in the heap or outside of it
+ * (`stopwords.index=offheap`), where the garbage collector never scans the words. The layout is
+ * <pre>
+ *     int magic, int version, int number of words, int number of slots, int flags, int length of the list in bytes
+ *     slots:   number of slots * (int hash of the folded word, int position of the word or 0 if the slot is empty)
+ *     words:   (unsigned short length, UTF-8 bytes of the folded word)*
+ * </pre>
+ * The slots form an open-addressing hash table with linear probing, using the hash of {@link CaseFolding}. The flags
+ * record the normalization of the words ({@link #NFKC_FLAG}), which should be the one of the words looked up.
+ * The words are compared by decoding their UTF-8 bytes on the fly, so a lookup does not allocate.
+ */
+final class CompiledStopWordIndex implements StopWordIndex {
+
+    static final int MAGIC = 0x53574C31; // "SWL1"
+    // version 2 folds the case per code point with the Unicode simple case folding, version 3 adds the flags
+    static final int VERSION = 3;
+    /** Flag of the list whose words are normalized to the NFKC form before their case is folded. */
+    static final int NFKC_FLAG = 1;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int SLOT_SIZE = 8;
+    private static final int MAX_WORD_BYTES = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int mask;
+
+    private CompiledStopWordIndex(ByteBuffer buffer, boolean nfkc) throws IOException {
+        if (buffer.limit() < 8 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled stop words list");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported version of compiled stop words list: " + buffer.getInt(4)
+                    + ", it should be compiled again with StopWordsListCompiler");
+        }
+        // the header is checked against the buffer, so a truncated or corrupt list is not read out of its bounds
+        final int count = buffer.limit() < HEADER_SIZE ? -1 : buffer.getInt(8);
+        final int slots = buffer.limit() < HEADER_SIZE ? 0 : buffer.getInt(12);
+        final long length = buffer.limit() < HEADER_SIZE ? -1 : buffer.getInt(20);
+        if (count < 0 || slots < 2 || Integer.bitCount(slots) != 1 || count >= slots
+                || length < HEADER_SIZE + (long) slots * SLOT_SIZE || length > buffer.limit()) {
+            throw new IOException("Compiled stop words list is truncated or corrupt, "
+                    + "it should be compiled again with StopWordsListCompiler");
+        }
+        final boolean compiledNfkc = (buffer.getInt(16) & NFKC_FLAG) != 0;
+        if (compiledNfkc != nfkc) {
+            throw new IOException("Compiled stop words list is normalized with " + normalizationName(compiledNfkc)
+                    + ", while the words looked up are normalized with " + normalizationName(nfkc)
+                    + ", it should be compiled again with StopWordsListCompiler");
+        }
+        this.buffer = buffer;
+        this.size = count;
+        this.mask = slots - 1;
+    }
+
+    private static String normalizationName(boolean nfkc) {
+        return nfkc ? "nfkc" : "none";
+    }
+
+    /**
+     * Memory-maps the compiled stop words list. Only the header is read, the words are paged in by the OS on lookup.
+     * @param path path of the compiled list
+     * @param nfkc whether the words looked up are normalized to the NFKC form
+     * @return the index backed by the mapped file
+     * @throws IOException if the file cannot be mapped, is not a compiled stop words list, or its words are
+     *     normalized otherwise
+     */
+    static CompiledStopWordIndex map(Path path, boolean nfkc) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CompiledStopWordIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), nfkc);
+        }
+    }
+
+    /**
+     * Wraps the buffer, containing a compiled stop words list.
+     * @param buffer buffer with the compiled list
+     * @param nfkc whether the words looked up are normalized to the NFKC form
+     * @return the index backed by the buffer
+     * @throws IOException if the buffer does not contain a compiled stop words list, or its words are normalized
+     *     otherwise
+     */
+    static CompiledStopWordIndex wrap(ByteBuffer buffer, boolean nfkc) throws IOException {
+        return new CompiledStopWordIndex(buffer, nfkc);
+    }
+
+    /**
+     * Compiles the words, which are not normalized, into a heap buffer.
+     * @param words stop words, their case is folded
+     * @return buffer with the compiled list, positioned at zero with the limit at its end
+     */
+    static ByteBuffer compile(Collection<String> words) {
+        return compile(words, false, false);
+    }
+
+    /**
+     * Compiles the words into a heap buffer, or into a direct buffer outside of the heap.
+     * @param words stop words, their case is folded
+     * @param nfkc whether the words have been normalized to the NFKC form, which is recorded in the list
+     * @param direct whether the buffer is allocated outside of the heap
+     * @return buffer with the compiled list, positioned at zero with the limit at its end
+     */
+    static ByteBuffer compile(Collection<String> words, boolean nfkc, boolean direct) {
+        long wordsBytes = 0;
+        for (String word : words) {
+            // the folded form of a word may be longer in UTF-8, e.g. U+023A of 2 bytes folds to U+2C65 of 3 bytes
+            wordsBytes += 2 + utf8Length(CaseFolding.fold(word));
+        }
+        final Builder builder = new Builder(words.size(), wordsBytes, nfkc, direct);
+        for (String word : words) {
+            builder.add(CaseFolding.fold(word));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Compiles the file with newline-separated stop words into a direct buffer, without keeping its words in the heap:
+     * the file is read twice, first to size the buffer, then to fill it.
+     * @param path path of the text list
+     * @param nfkc whether every word is normalized to the NFKC form before it is folded
+     * @return buffer with the compiled list, positioned at zero with the limit at its end
+     * @throws IOException if the file cannot be read, or has changed between the readings
+     */
+    static ByteBuffer compileDirect(Path path, boolean nfkc) throws IOException {
+        final UnaryOperator<String> normalization = nfkc
+                ? word -> CaseFolding.normalize(word).toString()
+                : UnaryOperator.identity();
+        int wordsCount = 0;
+        long wordsBytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (wordsCount == Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Too many stop words in " + path);
+                }
+                wordsCount++;
+                wordsBytes += 2 + utf8Length(CaseFolding.fold(normalization.apply(line)));
+            }
+        }
+
+        final Builder builder = new Builder(wordsCount, wordsBytes, nfkc, true);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int readCount = 0;
+            long readBytes = 0;
+            while ((line = reader.readLine()) != null) {
+                final String folded = CaseFolding.fold(normalization.apply(line));
+                readCount++;
+                readBytes += 2 + utf8Length(folded);
+                // the words which would not fit into the buffer sized by the first reading are not written
+                if (readCount > wordsCount || readBytes > wordsBytes) {
+                    throw new IOException("Stop words file has changed while it was loaded: " + path);
+                }
+                builder.add(folded);
+            }
+            if (readCount != wordsCount || readBytes != wordsBytes) {
+                throw new IOException("Stop words file has changed while it was loaded: " + path);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the words into a buffer sized up front for the given number of words and of their UTF-8 bytes.
+     */
+    private static final class Builder {
+        private final ByteBuffer buffer;
+        private final int slotsMask;
+        private final int flags;
+        private int count;
+        private int end;
+
+        private Builder(int wordsCount, long wordsBytes, boolean nfkc, boolean direct) {
+            final int slots = tableSizeFor(wordsCount);
+            final long capacity = HEADER_SIZE + (long) slots * SLOT_SIZE + wordsBytes;
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Compiled stop words list exceeds 2 GB");
+            }
+            this.buffer = direct ? ByteBuffer.allocateDirect((int) capacity) : ByteBuffer.allocate((int) capacity);
+            this.slotsMask = slots - 1;
+            this.flags = nfkc ? NFKC_FLAG : 0;
+            this.end = HEADER_SIZE + slots * SLOT_SIZE;
+            buffer.putInt(12, slots);
+        }
+
+        /** Adds the word, which has been folded with {@link CaseFolding#fold}. */
+        private void add(String folded) {
+            final byte[] bytes = folded.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_WORD_BYTES) {
+                throw new IllegalArgumentException("Stop word is too long: " + folded);
+            }
+            final int hash = CaseFolding.hash(folded);
+            int slot = hash & slotsMask;
+            int position;
+            while ((position = buffer.getInt(slotOffset(slot) + 4)) != 0) {
+                if (buffer.getInt(slotOffset(slot)) == hash && wordEquals(buffer, position, folded)) {
+                    return;
+                }
+                slot = (slot + 1) & slotsMask;
+            }
+            buffer.putInt(slotOffset(slot), hash);
+            buffer.putInt(slotOffset(slot) + 4, end);
+            buffer.putShort(end, (short) bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(end + 2 + i, bytes[i]);
+            }
+            end += 2 + bytes.length;
+            count++;
+        }
+
+        private ByteBuffer build() {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, count);
+            buffer.putInt(16, flags);
+            buffer.putInt(20, end);
+            buffer.limit(end);
+            return buffer;
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        // the load factor is kept at or below 0.7, which is a good trade-off between size of the file and probing
+        long required = Math.max(2L, (long) expectedSize * 10 / 7 + 1);
+        if (required > (1 << 30)) {
+            throw new IllegalArgumentException("Too many stop words: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int utf8Length(String word) {
+        int length = 0;
+        for (int i = 0; i < word.length(); i++) {
+            final char c = word.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < word.length()
+                    && Character.isLowSurrogate(word.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public boolean containsIgnoreCase(CharSequence word) {
+        final int hash = CaseFolding.hash(word);
+        int slot = hash & mask;
+        int position;
+        while ((position = buffer.getInt(slotOffset(slot) + 4)) != 0) {
+            if (buffer.getInt(slotOffset(slot)) == hash && wordEquals(buffer, position, word)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Compares the folded word stored at the position with the folded form of another word, decoding UTF-8 on the fly.
+     */
+    private static boolean wordEquals(ByteBuffer buffer, int position, CharSequence word) {
+        final int end = position + 2 + (buffer.getShort(position) & 0xFFFF);
+        final int length = word.length();
+        int p = position + 2;
+        int i = 0;
+        while (p < end) {
+            final int b = buffer.get(p) & 0xFF;
+            final int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+                p += 1;
+            } else if (b < 0xE0) {
+                codePoint = ((b & 0x1F) << 6) | (buffer.get(p + 1) & 0x3F);
+                p += 2;
+            } else if (b < 0xF0) {
+                codePoint = ((b & 0x0F) << 12) | ((buffer.get(p + 1) & 0x3F) << 6) | (buffer.get(p + 2) & 0x3F);
+                p += 3;
+            } else {
+                codePoint = ((b & 0x07) << 18) | ((buffer.get(p + 1) & 0x3F) << 12)
+                        | ((buffer.get(p + 2) & 0x3F) << 6) | (buffer.get(p + 3) & 0x3F);
+                p += 4;
+            }
+
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                if (i >= length || CaseFolding.foldedCharAt(word, i) != codePoint) {
+                    return false;
+                }
+                i++;
+            } else {
+                if (i + 1 >= length
+                        || CaseFolding.foldedCharAt(word, i) != Character.highSurrogate(codePoint)
+                        || CaseFolding.foldedCharAt(word, i + 1) != Character.lowSurrogate(codePoint)) {
+                    return false;
+                }
+                i += 2;
+            }
+        }
+        return i == length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of the bytes of the index stored outside of the heap, either mapped or allocated directly.
+     * @return the number of the bytes outside of the heap, zero for a heap buffer
+     */
+    long offHeapBytes() {
+        return buffer.isDirect() ? buffer.capacity() : 0;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Flight recorder event of building the index of a list of stop words. This is the version for Java 8, which has no
+ * flight recorder API, and records nothing; the multi-release JAR replaces it with a JFR event on Java 11 and later.
+ */
+final class IndexBuildEvent {
+
+    private static final IndexBuildEvent NONE = new IndexBuildEvent();
+
+    private IndexBuildEvent() {
+    }
+
+    /**
+     * Starts the event, before the index is built.
+     * @return the started event
+     */
+    static IndexBuildEvent start() {
+        return NONE;
+    }
+
+    /**
+     * Ends the event and records it, if the recording is enabled.
+     * @param index kind of the index (`stopwords.index` property)
+     * @param entriesCount number of the words of the index
+     */
+    void finish(String index, int entriesCount) {
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Flight recorder event of loading a list of stop words. This is the version for Java 8, which has no flight recorder
+ * API, and records nothing; the multi-release JAR replaces it with a JFR event on Java 11 and later.
+ */
+final class ListLoadEvent {
+
+    private static final ListLoadEvent NONE = new ListLoadEvent();
+
+    private ListLoadEvent() {
+    }
+
+    /**
+     * Starts the event, before the list is loaded.
+     * @return the started event
+     */
+    static ListLoadEvent start() {
+        return NONE;
+    }
+
+    /**
+     * Ends the event and records it, if the recording is enabled.
+     * @param source source of the list, e.g. the path of its file
+     * @param entriesCount number of the words of the list
+     * @param bytes size of the source in bytes, or -1 if it is not known
+     */
+    void finish(String source, int entriesCount, long bytes) {
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Metrics ignored, which are used by default. The annotator checks for this instance and skips measuring altogether,
+ * so neither the clock is read, nor the stopped tokens are counted.
+ */
+final class NoopStopWordsMetrics implements StopWordsMetrics {
+
+    static final NoopStopWordsMetrics INSTANCE = new NoopStopWordsMetrics();
+
+    private NoopStopWordsMetrics() {
+    }
+
+    @Override
+    public void documentAnnotated(int tokensCount, long durationNanos) {
+    }
+
+    @Override
+    public void tokensStopped(Rule rule, int count) {
+    }
+
+    @Override
+    public void listLoaded(String listName, int wordsCount, long durationNanos) {
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Index normalizing the looked up words to the NFKC form, for the indexes of the words normalized when the list was
+ * loaded. The ASCII words, which are the most of the words of most of the documents, are looked up as they are.
+ */
+final class NormalizingStopWordIndex implements StopWordIndex {
+
+    private final StopWordIndex index;
+
+    NormalizingStopWordIndex(StopWordIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public boolean containsIgnoreCase(CharSequence word) {
+        return index.containsIgnoreCase(CaseFolding.normalize(word));
+    }
+
+    @Override
+    public boolean containsIgnoreCase(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (chars[i] >= 0x80) {
+                return index.containsIgnoreCase(CaseFolding.normalize(new String(chars, offset, length)));
+            }
+        }
+        return index.containsIgnoreCase(chars, offset, length);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+}
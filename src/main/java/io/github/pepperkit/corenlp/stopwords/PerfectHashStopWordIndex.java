@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact stop words index for large static lists, built on a minimal perfect hash function in the style of BBHash
+ * (a cascade of collision-free bit arrays), with a 16-bit fingerprint per word to reject the words not in the list.
+ * The words themselves are not stored: the index takes about 2.5 bytes per word, but a word not in the list is
+ * reported as a stop word with a probability of about 1/65536.
+ */
+final class PerfectHashStopWordIndex implements StopWordIndex {
+
+    /** Size of a level's bit array relative to the number of words placed on it. */
+    private static final double GAMMA = 2.0;
+    private static final int MAX_LEVELS = 32;
+    private static final long LEVEL_SEED = 0x9E3779B97F4A7C15L;
+    /** Number of 64-bit words covered by a single precomputed rank. */
+    private static final int RANK_BLOCK = 8;
+
+    private final long[] bits;
+    private final int[] levelOffsets;
+    private final int[] levelSizes;
+    private final int[] ranks;
+    private final short[] fingerprints;
+    /** Hashes which could not be placed on any level, sorted; practically always empty. */
+    private final long[] fallback;
+    private final int size;
+
+    /**
+     * Builds the index for the words.
+     * @param words stop words, their case is folded
+     */
+    PerfectHashStopWordIndex(Collection<String> words) {
+        long[] keys = new long[words.size()];
+        int n = 0;
+        for (String word : words) {
+            keys[n++] = CaseFolding.hash64(word);
+        }
+        // the words with equal folded forms have equal hashes, and a perfect hash function needs distinct keys
+        keys = distinct(keys);
+        this.size = keys.length;
+
+        int[] offsets = new int[MAX_LEVELS];
+        int[] sizes = new int[MAX_LEVELS];
+        long[] levelBits = new long[0];
+        long[] remaining = keys.clone();
+        int levels = 0;
+        int totalBits = 0;
+        while (remaining.length > 0 && levels < MAX_LEVELS) {
+            final int levelSize = levelSize(remaining.length);
+            final long[] placed = new long[levelSize >>> 6];
+            final long[] collided = new long[levelSize >>> 6];
+            for (long key : remaining) {
+                final int position = position(key, levels, levelSize);
+                if (isSet(placed, position)) {
+                    set(collided, position);
+                } else {
+                    set(placed, position);
+                }
+            }
+            for (int i = 0; i < placed.length; i++) {
+                placed[i] &= ~collided[i];
+            }
+
+            int next = 0;
+            for (long key : remaining) {
+                if (isSet(collided, position(key, levels, levelSize))) {
+                    remaining[next++] = key;
+                }
+            }
+            remaining = Arrays.copyOf(remaining, next);
+
+            offsets[levels] = totalBits;
+            sizes[levels] = levelSize;
+            levelBits = Arrays.copyOf(levelBits, (totalBits + levelSize) >>> 6);
+            System.arraycopy(placed, 0, levelBits, totalBits >>> 6, placed.length);
+            totalBits += levelSize;
+            levels++;
+        }
+
+        this.bits = levelBits;
+        this.levelOffsets = Arrays.copyOf(offsets, levels);
+        this.levelSizes = Arrays.copyOf(sizes, levels);
+        this.ranks = buildRanks(levelBits);
+        Arrays.sort(remaining);
+        this.fallback = remaining;
+
+        this.fingerprints = new short[size - fallback.length];
+        for (long key : keys) {
+            final int index = indexOf(key);
+            if (index >= 0) {
+                fingerprints[index] = fingerprint(key);
+            }
+        }
+    }
+
+    private static long[] distinct(long[] keys) {
+        Arrays.sort(keys);
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[n++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, n);
+    }
+
+    private static int levelSize(int keysCount) {
+        // the level is rounded up to whole 64-bit words
+        final long bitsCount = Math.max(64L, (long) Math.ceil(keysCount * GAMMA));
+        return (int) ((bitsCount + 63) & ~63L);
+    }
+
+    private static int position(long key, int level, int levelSize) {
+        final long h = CaseFolding.mix64(key + (level + 1) * LEVEL_SEED);
+        // maps the upper 32 bits of the hash to [0, levelSize) without a division
+        return (int) (((h >>> 32) * levelSize) >>> 32);
+    }
+
+    private static short fingerprint(long key) {
+        return (short) key;
+    }
+
+    private static boolean isSet(long[] bitArray, int position) {
+        return (bitArray[position >>> 6] & (1L << position)) != 0;
+    }
+
+    private static void set(long[] bitArray, int position) {
+        bitArray[position >>> 6] |= 1L << position;
+    }
+
+    private static int[] buildRanks(long[] bitArray) {
+        final int[] blockRanks = new int[bitArray.length / RANK_BLOCK + 1];
+        int rank = 0;
+        for (int i = 0; i < bitArray.length; i++) {
+            if (i % RANK_BLOCK == 0) {
+                blockRanks[i / RANK_BLOCK] = rank;
+            }
+            rank += Long.bitCount(bitArray[i]);
+        }
+        return blockRanks;
+    }
+
+    /**
+     * Returns the number of set bits before the position.
+     */
+    private int rank(int position) {
+        final int word = position >>> 6;
+        int rank = ranks[word / RANK_BLOCK];
+        for (int i = word - word % RANK_BLOCK; i < word; i++) {
+            rank += Long.bitCount(bits[i]);
+        }
+        return rank + Long.bitCount(bits[word] & ((1L << position) - 1));
+    }
+
+    /**
+     * Evaluates the perfect hash function: returns the index of the key, or -1 if the key is not placed on any level.
+     * For a key not in the index, either -1 or an index of another key is returned.
+     */
+    private int indexOf(long key) {
+        for (int level = 0; level < levelOffsets.length; level++) {
+            final int position = levelOffsets[level] + position(key, level, levelSizes[level]);
+            if (isSet(bits, position)) {
+                return rank(position);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean containsIgnoreCase(CharSequence word) {
+        return containsKey(CaseFolding.hash64(word));
+    }
+
+    @Override
+    public boolean containsIgnoreCase(char[] chars, int offset, int length) {
+        return containsKey(CaseFolding.hash64(chars, offset, length));
+    }
+
+    private boolean containsKey(long key) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            return fingerprints[index] == fingerprint(key);
+        }
+        return fallback.length > 0 && Arrays.binarySearch(fallback, key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate memory taken by the index.
+     * @return the size of the index's arrays in bytes
+     */
+    long sizeInBytes() {
+        return (long) bits.length * Long.BYTES + (long) ranks.length * Integer.BYTES
+                + (long) fingerprints.length * Short.BYTES + (long) fallback.length * Long.BYTES
+                + (long) (levelOffsets.length + levelSizes.length) * Integer.BYTES;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of POS tags, checked with a single bit test for the tags of the CoreNLP tagsets.
+ * <p>
+ * Every tag of the Penn Treebank (English), Universal POS (Spanish, French and others since CoreNLP 4.5), Penn Chinese
+ * Treebank and STTS (German) tagsets has a fixed id in a precomputed open addressing table, probed with the hash code
+ * cached in the tag's {@link String} and compared by identity first, since the taggers reuse the same strings. The set
+ * is a bitmask indexed by the ids. The tags of no known tagset are kept in a regular set, which is only checked for the
+ * tags without an id.
+ */
+final class PosTagSet {
+
+    private static final String[] PENN = {
+        "CC", "CD", "DT", "EX", "FW", "IN", "JJ", "JJR", "JJS", "LS", "MD", "NN", "NNS", "NNP", "NNPS", "PDT", "POS",
+        "PRP", "PRP$", "RB", "RBR", "RBS", "RP", "SYM", "TO", "UH", "VB", "VBD", "VBG", "VBN", "VBP", "VBZ", "WDT",
+        "WP", "WP$", "WRB", "#", "$", ".", ",", ":", "``", "''", "-LRB-", "-RRB-", "-LCB-", "-RCB-", "-LSB-", "-RSB-",
+        "-NONE-", "HYPH", "NFP", "ADD", "AFX", "GW", "XX",
+    };
+
+    private static final String[] UNIVERSAL = {
+        "ADJ", "ADP", "ADV", "AUX", "CCONJ", "DET", "INTJ", "NOUN", "NUM", "PART", "PRON", "PROPN", "PUNCT", "SCONJ",
+        "SYM", "VERB", "X",
+    };
+
+    private static final String[] CHINESE = {
+        "AD", "AS", "BA", "CC", "CD", "CS", "DEC", "DEG", "DER", "DEV", "DT", "ETC", "FW", "IJ", "JJ", "LB", "LC", "M",
+        "MSP", "NN", "NR", "NT", "OD", "ON", "P", "PN", "PU", "SB", "SP", "URL", "VA", "VC", "VE", "VV",
+    };
+
+    private static final String[] GERMAN = {
+        "ADJA", "ADJD", "ADV", "APPR", "APPRART", "APPO", "APZR", "ART", "CARD", "FM", "ITJ", "KOUI", "KOUS", "KON",
+        "KOKOM", "NN", "NE", "PDS", "PDAT", "PIS", "PIAT", "PIDAT", "PPER", "PPOSS", "PPOSAT", "PRELS", "PRELAT", "PRF",
+        "PWS", "PWAT", "PWAV", "PAV", "PROAV", "PTKZU", "PTKNEG", "PTKVZ", "PTKANT", "PTKA", "TRUNC", "VVFIN", "VVIMP",
+        "VVINF", "VVIZU", "VVPP", "VAFIN", "VAIMP", "VAINF", "VAPP", "VMFIN", "VMINF", "VMPP", "XY", "$,", "$.", "$(",
+    };
+
+    private static final String[] TAGS;
+    private static final int[] IDS;
+    private static final int MASK;
+    private static final int TAGS_COUNT;
+
+    static {
+        final Set<String> tags = new LinkedHashSet<>();
+        Collections.addAll(tags, PENN);
+        Collections.addAll(tags, UNIVERSAL);
+        Collections.addAll(tags, CHINESE);
+        Collections.addAll(tags, GERMAN);
+        TAGS_COUNT = tags.size();
+
+        // a load factor of at most 0.25 keeps nearly every tag in its own slot
+        final int capacity = Integer.highestOneBit(TAGS_COUNT * 4 - 1) << 1;
+        TAGS = new String[capacity];
+        IDS = new int[capacity];
+        MASK = capacity - 1;
+        int id = 0;
+        for (String tag : tags) {
+            int i = spread(tag.hashCode()) & MASK;
+            while (TAGS[i] != null) {
+                i = (i + 1) & MASK;
+            }
+            TAGS[i] = tag;
+            IDS[i] = id++;
+        }
+    }
+
+    private final long[] bits = new long[(TAGS_COUNT + 63) >>> 6];
+    private final Set<String> otherTags;
+
+    /**
+     * Creates a new set of the tags.
+     * @param tags tags to put into the set
+     */
+    PosTagSet(Collection<String> tags) {
+        final Set<String> others = new LinkedHashSet<>();
+        for (String tag : tags) {
+            final int id = id(tag);
+            if (id >= 0) {
+                bits[id >>> 6] |= 1L << id;
+            } else {
+                others.add(tag);
+            }
+        }
+        this.otherTags = others.isEmpty() ? Collections.emptySet() : others;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the id of the tag, if it belongs to a known tagset.
+     * @param tag tag to look up
+     * @return the id of the tag, or -1 if the tag is unknown
+     */
+    static int id(String tag) {
+        int i = spread(tag.hashCode()) & MASK;
+        String key;
+        while ((key = TAGS[i]) != null) {
+            if (key == tag || key.equals(tag)) {
+                return IDS[i];
+            }
+            i = (i + 1) & MASK;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the tag belongs to the set.
+     * @param tag tag to check, may be null
+     * @return true if the tag is in the set
+     */
+    boolean contains(String tag) {
+        if (tag == null) {
+            return false;
+        }
+        final int id = id(tag);
+        if (id >= 0) {
+            return (bits[id >>> 6] & (1L << id)) != 0;
+        }
+        return !otherTags.isEmpty() && otherTags.contains(tag);
+    }
+}
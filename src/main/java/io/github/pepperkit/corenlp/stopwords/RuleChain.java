@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * Immutable, ordered chain of the configured rules. A token is stopped as soon as any rule of the chain matches,
+ * so the rules placed first decide most of the tokens. The chain may have a cache of the decisions of its costly rules,
+ * which is looked up only for the tokens not stopped by the cheap ones, and is shared by the chains of the same rules
+ * in another order.
+ */
+final class RuleChain {
+
+    private final StopWordRule[] rules;
+    // whether the decision of the rule at the same position is cached
+    private final boolean[] cached;
+    private final VerdictCache verdicts;
+
+    private RuleChain(List<StopWordRule> rules, VerdictCache verdicts) {
+        this.rules = rules.toArray(new StopWordRule[0]);
+        this.cached = new boolean[this.rules.length];
+        for (int i = 0; i < this.rules.length; i++) {
+            cached[i] = verdicts != null && VerdictCache.caches(this.rules[i]);
+        }
+        this.verdicts = verdicts;
+    }
+
+    /**
+     * Creates the chain, ordering the rules cheapest-first.
+     * @param rules configured rules
+     * @return the chain of rules
+     */
+    static RuleChain cheapestFirst(Collection<StopWordRule> rules) {
+        return cheapestFirst(rules, 0, null);
+    }
+
+    /**
+     * Creates the chain, ordering the rules cheapest-first, with a cache of its decisions.
+     * @param rules configured rules
+     * @param cacheSize maximum number of the cached decisions, or 0 not to cache them
+     * @param counters statistics of the cache
+     * @return the chain of rules
+     */
+    static RuleChain cheapestFirst(Collection<StopWordRule> rules, int cacheSize, VerdictCache.Counters counters) {
+        List<StopWordRule> ordered = new ArrayList<>(rules);
+        ordered.sort(Comparator.comparingInt(rule -> rule.kind().cost()));
+        List<StopWordRule> cachedRules = new ArrayList<>();
+        for (StopWordRule rule : ordered) {
+            if (VerdictCache.caches(rule)) {
+                cachedRules.add(rule);
+            }
+        }
+        return new RuleChain(ordered, cacheSize > 0 && !cachedRules.isEmpty()
+                ? new VerdictCache(cacheSize, cachedRules, counters)
+                : null);
+    }
+
+    /**
+     * Creates the chain of the same rules in the provided order, keeping the cache of the decisions, which do not
+     * depend on the order.
+     * @param reordered rules of the chain in the new order
+     * @return the reordered chain of rules
+     */
+    RuleChain reorder(List<StopWordRule> reordered) {
+        return new RuleChain(reordered, verdicts);
+    }
+
+    /**
+     * Returns the cache of the decisions of the chain.
+     * @return the cache, or null if the decisions are not cached
+     */
+    VerdictCache verdicts() {
+        return verdicts;
+    }
+
+    /**
+     * Finds the first rule of the chain, which stops the token.
+     * @param token token to check
+     * @return position of the matched rule in the chain, or -1 if the token is not stopped
+     */
+    int firstMatch(CoreLabel token) {
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i].test(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first rule of the chain, whose decision is not cached, which stops the token.
+     * @param token token to check
+     * @return position of the matched rule in the chain, or -1 if no such rule stops the token
+     */
+    int firstUncachedMatch(CoreLabel token) {
+        for (int i = 0; i < rules.length; i++) {
+            if (!cached[i] && rules[i].test(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first rule of the chain, whose decision is cached, which stops the token.
+     * @param token token to check
+     * @return position of the matched rule in the chain, or -1 if no such rule stops the token
+     */
+    int firstCachedMatch(CoreLabel token) {
+        for (int i = 0; i < rules.length; i++) {
+            if (cached[i] && rules[i].test(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the token is stopped by any rule of the chain, testing the cheap rules first and looking up
+     * the cached decision of the costly ones.
+     * @param token token to check
+     * @return true if the token should be stopped
+     */
+    boolean test(CoreLabel token) {
+        if (verdicts == null) {
+            return firstMatch(token) >= 0;
+        }
+        if (firstUncachedMatch(token) >= 0) {
+            return true;
+        }
+        final long fingerprint = verdicts.fingerprint(token);
+        final int cached = verdicts.get(fingerprint);
+        if (cached != VerdictCache.MISS) {
+            verdicts.counters().record(1, 0, 0);
+            return cached == 1;
+        }
+        final boolean stopped = firstCachedMatch(token) >= 0;
+        verdicts.counters().record(0, 1, verdicts.put(fingerprint, stopped) ? 1 : 0);
+        return stopped;
+    }
+
+    StopWordRule get(int position) {
+        return rules[position];
+    }
+
+    int size() {
+        return rules.length;
+    }
+
+    boolean isEmpty() {
+        return rules.length == 0;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor of {@link StopWordsService}. This is the version for the JVMs without virtual threads, which
+ * runs the documents in a pool of platform threads; the multi-release JAR replaces it on Java 21 and later.
+ */
+final class ServiceExecutors {
+
+    private ServiceExecutors() {
+    }
+
+    /**
+     * Creates the executor running the documents of the service.
+     * @param maxConcurrency maximum number of the documents annotated at once
+     * @return the pool of as many daemon threads
+     */
+    static ExecutorService create(int maxConcurrency) {
+        final AtomicInteger threadsCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(maxConcurrency, task -> {
+            final Thread thread = new Thread(task, "stopwords-service-" + threadsCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Tells whether the documents are run on virtual threads.
+     * @return false, as this JVM has no virtual threads
+     */
+    static boolean virtualThreads() {
+        return false;
+    }
+}
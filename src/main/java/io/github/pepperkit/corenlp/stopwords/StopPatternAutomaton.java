@@ -0,0 +1,773 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.IntPredicate;
+
+/**
+ * Deterministic automaton of the union of stop patterns, which decides whether a word matches any of the patterns in
+ * a single pass over its characters, however many patterns there are.
+ * <p>
+ * The patterns use a subset of the {@link java.util.regex.Pattern} syntax: literal characters, {@code .}, the
+ * character classes {@code [...]} and {@code [^...]} with ranges, the escapes {@code \d \w \s \D \W \S}, the
+ * categories {@code \p{...}} and {@code \P{...}} ({@code L, Lu, Ll, N, Nd, P, S, Z, Punct, Alpha, Digit, Alnum,
+ * Upper, Lower, Space}), the groups {@code (...)}, the alternation {@code |} and the quantifiers {@code * + ?}.
+ * As with {@link java.util.regex.Matcher#find()}, a pattern matches if it is found anywhere in the word, unless it is
+ * anchored with {@code ^} at its start and/or {@code $} at its end. The anchors apply to the alternative of the top
+ * level {@code |} they belong to, as in {@link java.util.regex.Pattern}: {@code ^a|b} is {@code (^a)|b}, and the
+ * anchors are not supported inside the groups.
+ * <p>
+ * The patterns are compiled to a nondeterministic automaton, which is determinized by the subset construction over
+ * the classes of the characters the patterns do not distinguish. The states deciding the result whatever characters
+ * follow are marked, so most words are decided without reading them to the end.
+ */
+final class StopPatternAutomaton {
+
+    private static final int MAX_STATES = 10_000;
+    private static final int ASCII = 128;
+
+    private static final byte UNDECIDED = 0;
+    private static final byte ACCEPTED = 1;
+    private static final byte REJECTED = -1;
+
+    // classes of the characters: a direct table for ASCII, and the starts of the intervals of the other characters
+    private final int[] asciiClasses;
+    private final char[] intervalStarts;
+    private final int[] intervalClasses;
+    private final int classesCount;
+
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final byte[] decided;
+    private final int patternsCount;
+
+    /**
+     * Compiles the union of the patterns.
+     * @param patterns patterns to match
+     * @throws IllegalArgumentException if a pattern is malformed, uses unsupported syntax, or the automaton is too large
+     */
+    StopPatternAutomaton(Collection<String> patterns) {
+        final Nfa nfa = new Nfa();
+        final int start = nfa.newState();
+        for (String pattern : patterns) {
+            final Fragment fragment = new Parser(pattern, nfa).parse();
+            nfa.epsilon(start, fragment.start);
+            nfa.accept(fragment.end);
+        }
+        this.patternsCount = patterns.size();
+
+        // the intervals of the characters no pattern distinguishes, merged into classes by the sets they belong to
+        final int[] boundaries = nfa.boundaries();
+        final Map<BitSet, Integer> signatures = new HashMap<>();
+        final int[] classOfInterval = new int[boundaries.length];
+        final List<Character> representatives = new ArrayList<>();
+        for (int i = 0; i < boundaries.length; i++) {
+            final BitSet signature = nfa.signature((char) boundaries[i]);
+            Integer cls = signatures.get(signature);
+            if (cls == null) {
+                cls = signatures.size();
+                signatures.put(signature, cls);
+                representatives.add((char) boundaries[i]);
+            }
+            classOfInterval[i] = cls;
+        }
+        this.classesCount = signatures.size();
+        this.asciiClasses = new int[ASCII];
+        for (char c = 0; c < ASCII; c++) {
+            asciiClasses[c] = classOfInterval[interval(boundaries, c)];
+        }
+        this.intervalStarts = new char[boundaries.length];
+        for (int i = 0; i < boundaries.length; i++) {
+            intervalStarts[i] = (char) boundaries[i];
+        }
+        this.intervalClasses = classOfInterval;
+
+        // subset construction, state 0 is the dead state of no NFA states
+        final Map<BitSet, Integer> states = new HashMap<>();
+        final List<BitSet> subsets = new ArrayList<>();
+        final Queue<Integer> queue = new ArrayDeque<>();
+        subsets.add(new BitSet());
+        states.put(subsets.get(0), 0);
+        final BitSet initial = nfa.closure(singleton(start));
+        states.put(initial, 1);
+        subsets.add(initial);
+        queue.add(1);
+        int[] table = new int[2 * classesCount];
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            for (int cls = 0; cls < classesCount; cls++) {
+                final BitSet next = nfa.closure(nfa.move(subsets.get(state), representatives.get(cls)));
+                Integer target = states.get(next);
+                if (target == null) {
+                    target = subsets.size();
+                    if (target >= MAX_STATES) {
+                        throw new IllegalArgumentException("Stop patterns are too complex: " + patterns);
+                    }
+                    states.put(next, target);
+                    subsets.add(next);
+                    queue.add(target);
+                    if (table.length < subsets.size() * classesCount) {
+                        table = Arrays.copyOf(table, table.length * 2);
+                    }
+                }
+                table[state * classesCount + cls] = target;
+            }
+        }
+        final int statesCount = subsets.size();
+        this.transitions = Arrays.copyOf(table, statesCount * classesCount);
+        this.accepting = new boolean[statesCount];
+        for (int state = 0; state < statesCount; state++) {
+            accepting[state] = subsets.get(state).intersects(nfa.accepting);
+        }
+        this.decided = decide(statesCount);
+    }
+
+    private static BitSet singleton(int bit) {
+        final BitSet set = new BitSet();
+        set.set(bit);
+        return set;
+    }
+
+    private static int interval(int[] boundaries, char c) {
+        int i = Arrays.binarySearch(boundaries, c);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Marks the states, from which only accepting states are reachable, as accepted, and the states, from which no
+     * accepting state is reachable, as rejected.
+     */
+    private byte[] decide(int statesCount) {
+        final byte[] result = new byte[statesCount];
+        final boolean[] alwaysAccepting = accepting.clone();
+        final boolean[] mayAccept = accepting.clone();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int state = 0; state < statesCount; state++) {
+                for (int cls = 0; cls < classesCount; cls++) {
+                    final int target = transitions[state * classesCount + cls];
+                    if (alwaysAccepting[state] && !alwaysAccepting[target]) {
+                        alwaysAccepting[state] = false;
+                        changed = true;
+                    }
+                    if (!mayAccept[state] && mayAccept[target]) {
+                        mayAccept[state] = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for (int state = 0; state < statesCount; state++) {
+            result[state] = alwaysAccepting[state] ? ACCEPTED : !mayAccept[state] ? REJECTED : UNDECIDED;
+        }
+        return result;
+    }
+
+    private int classOf(char c) {
+        if (c < ASCII) {
+            return asciiClasses[c];
+        }
+        int low = 0;
+        int high = intervalStarts.length - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (intervalStarts[middle] <= c) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return intervalClasses[low];
+    }
+
+    /**
+     * Checks whether the word matches any of the patterns.
+     * @param word word to check
+     * @return true if any pattern matches the word
+     */
+    boolean matches(CharSequence word) {
+        int state = 1;
+        final int length = word.length();
+        for (int i = 0; i < length; i++) {
+            final byte decision = decided[state];
+            if (decision != UNDECIDED) {
+                return decision == ACCEPTED;
+            }
+            state = transitions[state * classesCount + classOf(word.charAt(i))];
+        }
+        return accepting[state];
+    }
+
+    /**
+     * Checks whether the word held in a range of the array matches any of the patterns.
+     * @param chars array holding the word
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @return true if any pattern matches the word
+     */
+    boolean matches(char[] chars, int offset, int length) {
+        int state = 1;
+        for (int i = offset; i < offset + length; i++) {
+            final byte decision = decided[state];
+            if (decision != UNDECIDED) {
+                return decision == ACCEPTED;
+            }
+            state = transitions[state * classesCount + classOf(chars[i])];
+        }
+        return accepting[state];
+    }
+
+    /**
+     * Returns the number of the states of the deterministic automaton, including the dead state.
+     * @return the number of the states
+     */
+    int statesCount() {
+        return accepting.length;
+    }
+
+    /**
+     * Returns the number of the compiled patterns.
+     * @return the number of the patterns
+     */
+    int size() {
+        return patternsCount;
+    }
+
+    /** Sorted disjoint inclusive ranges of characters. */
+    private static final class CharRanges {
+        static final CharRanges ALL = new CharRanges(new int[] {Character.MIN_VALUE, Character.MAX_VALUE});
+
+        private final int[] bounds;
+
+        private CharRanges(int[] bounds) {
+            this.bounds = bounds;
+        }
+
+        static CharRanges of(char from, char to) {
+            return new CharRanges(new int[] {from, to});
+        }
+
+        static CharRanges of(String chars) {
+            CharRanges ranges = new CharRanges(new int[0]);
+            for (int i = 0; i < chars.length(); i++) {
+                ranges = ranges.union(of(chars.charAt(i), chars.charAt(i)));
+            }
+            return ranges;
+        }
+
+        static CharRanges matching(IntPredicate predicate) {
+            final List<Integer> bounds = new ArrayList<>();
+            int from = -1;
+            for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE + 1; c++) {
+                final boolean in = c <= Character.MAX_VALUE && predicate.test(c);
+                if (in && from < 0) {
+                    from = c;
+                } else if (!in && from >= 0) {
+                    bounds.add(from);
+                    bounds.add(c - 1);
+                    from = -1;
+                }
+            }
+            return new CharRanges(bounds.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        boolean contains(char c) {
+            for (int i = 0; i < bounds.length && bounds[i] <= c; i += 2) {
+                if (c <= bounds[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        CharRanges union(CharRanges other) {
+            final int[] all = Arrays.copyOf(bounds, bounds.length + other.bounds.length);
+            System.arraycopy(other.bounds, 0, all, bounds.length, other.bounds.length);
+            final int[][] ranges = new int[all.length / 2][];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = new int[] {all[2 * i], all[2 * i + 1]};
+            }
+            Arrays.sort(ranges, (a, b) -> Integer.compare(a[0], b[0]));
+            final int[] merged = new int[all.length];
+            int size = 0;
+            for (int[] range : ranges) {
+                if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                    merged[size - 1] = Math.max(merged[size - 1], range[1]);
+                } else {
+                    merged[size++] = range[0];
+                    merged[size++] = range[1];
+                }
+            }
+            return new CharRanges(Arrays.copyOf(merged, size));
+        }
+
+        CharRanges complement() {
+            final int[] result = new int[bounds.length + 2];
+            int size = 0;
+            int next = Character.MIN_VALUE;
+            for (int i = 0; i < bounds.length; i += 2) {
+                if (bounds[i] > next) {
+                    result[size++] = next;
+                    result[size++] = bounds[i] - 1;
+                }
+                next = bounds[i + 1] + 1;
+            }
+            if (next <= Character.MAX_VALUE) {
+                result[size++] = next;
+                result[size++] = Character.MAX_VALUE;
+            }
+            return new CharRanges(Arrays.copyOf(result, size));
+        }
+    }
+
+    /** Start and end states of a part of a pattern, the end state has no outgoing transitions yet. */
+    private static final class Fragment {
+        final int start;
+        final int end;
+
+        Fragment(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /** Thompson's automaton: every state has either epsilon transitions, or a single transition on a set. */
+    private static final class Nfa {
+        final List<List<Integer>> epsilons = new ArrayList<>();
+        final List<CharRanges> labels = new ArrayList<>();
+        final List<Integer> targets = new ArrayList<>();
+        final BitSet accepting = new BitSet();
+
+        int newState() {
+            epsilons.add(new ArrayList<>());
+            labels.add(null);
+            targets.add(-1);
+            return epsilons.size() - 1;
+        }
+
+        void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        void accept(int state) {
+            accepting.set(state);
+        }
+
+        Fragment chars(CharRanges ranges) {
+            final int start = newState();
+            final int end = newState();
+            labels.set(start, ranges);
+            targets.set(start, end);
+            return new Fragment(start, end);
+        }
+
+        Fragment empty() {
+            final int state = newState();
+            return new Fragment(state, state);
+        }
+
+        Fragment concat(Fragment first, Fragment second) {
+            epsilon(first.end, second.start);
+            return new Fragment(first.start, second.end);
+        }
+
+        Fragment alternate(Fragment first, Fragment second) {
+            final int start = newState();
+            final int end = newState();
+            epsilon(start, first.start);
+            epsilon(start, second.start);
+            epsilon(first.end, end);
+            epsilon(second.end, end);
+            return new Fragment(start, end);
+        }
+
+        Fragment star(Fragment fragment) {
+            final int start = newState();
+            final int end = newState();
+            epsilon(start, fragment.start);
+            epsilon(start, end);
+            epsilon(fragment.end, fragment.start);
+            epsilon(fragment.end, end);
+            return new Fragment(start, end);
+        }
+
+        Fragment plus(Fragment fragment) {
+            final int end = newState();
+            epsilon(fragment.end, fragment.start);
+            epsilon(fragment.end, end);
+            return new Fragment(fragment.start, end);
+        }
+
+        Fragment optional(Fragment fragment) {
+            final int start = newState();
+            final int end = newState();
+            epsilon(start, fragment.start);
+            epsilon(start, end);
+            epsilon(fragment.end, end);
+            return new Fragment(start, end);
+        }
+
+        /** Returns the sorted starts of the intervals of characters, which are not split by any set. */
+        int[] boundaries() {
+            final BitSet starts = new BitSet(Character.MAX_VALUE + 1);
+            starts.set(Character.MIN_VALUE);
+            for (CharRanges label : labels) {
+                if (label == null) {
+                    continue;
+                }
+                for (int i = 0; i < label.bounds.length; i += 2) {
+                    starts.set(label.bounds[i]);
+                    if (label.bounds[i + 1] < Character.MAX_VALUE) {
+                        starts.set(label.bounds[i + 1] + 1);
+                    }
+                }
+            }
+            return starts.stream().toArray();
+        }
+
+        /** Returns the states having a transition on the character. */
+        BitSet signature(char c) {
+            final BitSet signature = new BitSet();
+            for (int state = 0; state < labels.size(); state++) {
+                final CharRanges label = labels.get(state);
+                if (label != null && label.contains(c)) {
+                    signature.set(state);
+                }
+            }
+            return signature;
+        }
+
+        BitSet move(BitSet states, char c) {
+            final BitSet result = new BitSet();
+            for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                final CharRanges label = labels.get(state);
+                if (label != null && label.contains(c)) {
+                    result.set(targets.get(state));
+                }
+            }
+            return result;
+        }
+
+        BitSet closure(BitSet states) {
+            final BitSet result = (BitSet) states.clone();
+            final Queue<Integer> queue = new ArrayDeque<>();
+            states.stream().forEach(queue::add);
+            while (!queue.isEmpty()) {
+                for (int next : epsilons.get(queue.remove())) {
+                    if (!result.get(next)) {
+                        result.set(next);
+                        queue.add(next);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /** Recursive descent parser of a pattern into a fragment of the automaton. */
+    private static final class Parser {
+        private final String pattern;
+        private final Nfa nfa;
+        private int position;
+
+        Parser(String pattern, Nfa nfa) {
+            this.pattern = pattern;
+            this.nfa = nfa;
+        }
+
+        /**
+         * Parses the pattern. As in {@link java.util.regex.Pattern}, the anchors belong to the alternatives of the
+         * pattern, e.g. {@code ^a|b} matches the words starting with a, and the words containing b.
+         */
+        Fragment parse() {
+            Fragment fragment = anchoredAlternative();
+            while (more() && pattern.charAt(position) == '|') {
+                position++;
+                fragment = nfa.alternate(fragment, anchoredAlternative());
+            }
+            if (more()) {
+                throw error("Unexpected '" + pattern.charAt(position) + "'", position);
+            }
+            return fragment;
+        }
+
+        private Fragment anchoredAlternative() {
+            final boolean anchoredStart = more() && pattern.charAt(position) == '^';
+            if (anchoredStart) {
+                position++;
+            }
+            Fragment fragment = nfa.empty();
+            while (more() && pattern.charAt(position) != '|' && pattern.charAt(position) != ')'
+                    && !endAnchorAt(position)) {
+                fragment = nfa.concat(fragment, repetition());
+            }
+            final boolean anchoredEnd = endAnchorAt(position);
+            if (anchoredEnd) {
+                position++;
+            }
+
+            if (!anchoredStart) {
+                fragment = nfa.concat(nfa.star(nfa.chars(CharRanges.ALL)), fragment);
+            }
+            if (!anchoredEnd) {
+                fragment = nfa.concat(fragment, nfa.star(nfa.chars(CharRanges.ALL)));
+            }
+            return fragment;
+        }
+
+        /** Checks whether an unescaped {@code $} ending an alternative of the pattern is at the position. */
+        private boolean endAnchorAt(int at) {
+            return at < pattern.length() && pattern.charAt(at) == '$'
+                    && (at + 1 == pattern.length() || pattern.charAt(at + 1) == '|');
+        }
+
+        private IllegalArgumentException error(String message, int at) {
+            return new IllegalArgumentException(message + " in stop pattern '" + pattern + "' at " + at);
+        }
+
+        private boolean more() {
+            return position < pattern.length();
+        }
+
+        private Fragment alternation() {
+            Fragment fragment = concatenation();
+            while (more() && pattern.charAt(position) == '|') {
+                position++;
+                fragment = nfa.alternate(fragment, concatenation());
+            }
+            return fragment;
+        }
+
+        private Fragment concatenation() {
+            Fragment fragment = nfa.empty();
+            while (more() && pattern.charAt(position) != '|' && pattern.charAt(position) != ')') {
+                fragment = nfa.concat(fragment, repetition());
+            }
+            return fragment;
+        }
+
+        private Fragment repetition() {
+            Fragment fragment = atom();
+            while (more()) {
+                final char c = pattern.charAt(position);
+                if (c == '*') {
+                    fragment = nfa.star(fragment);
+                } else if (c == '+') {
+                    fragment = nfa.plus(fragment);
+                } else if (c == '?') {
+                    fragment = nfa.optional(fragment);
+                } else if (c == '{') {
+                    throw error("Unsupported quantifier", position);
+                } else {
+                    break;
+                }
+                position++;
+            }
+            return fragment;
+        }
+
+        private Fragment atom() {
+            final char c = pattern.charAt(position++);
+            switch (c) {
+                case '(':
+                    final Fragment group = alternation();
+                    if (!more() || pattern.charAt(position) != ')') {
+                        throw error("Unclosed group", position);
+                    }
+                    position++;
+                    return group;
+                case '[':
+                    return nfa.chars(characterClass());
+                case '.':
+                    return nfa.chars(CharRanges.ALL);
+                case '\\':
+                    return nfa.chars(escape());
+                case '*':
+                case '+':
+                case '?':
+                    throw error("Dangling quantifier '" + c + "'", position - 1);
+                case '^':
+                case '$':
+                    throw error("Anchor '" + c + "' is only supported at the ends of the alternatives of a pattern",
+                            position - 1);
+                default:
+                    return nfa.chars(CharRanges.of(c, c));
+            }
+        }
+
+        private CharRanges characterClass() {
+            final boolean negated = more() && pattern.charAt(position) == '^';
+            if (negated) {
+                position++;
+            }
+            CharRanges ranges = CharRanges.of("");
+            boolean first = true;
+            while (true) {
+                if (!more()) {
+                    throw error("Unclosed character class", position);
+                }
+                char c = pattern.charAt(position++);
+                if (c == ']' && !first) {
+                    break;
+                }
+                first = false;
+                CharRanges item;
+                if (c == '\\') {
+                    item = escape();
+                    if (item.bounds.length != 2 || item.bounds[0] != item.bounds[1]) {
+                        ranges = ranges.union(item);
+                        continue;
+                    }
+                    c = (char) item.bounds[0];
+                }
+                if (position + 1 < pattern.length() && pattern.charAt(position) == '-'
+                        && pattern.charAt(position + 1) != ']') {
+                    position++;
+                    char to = pattern.charAt(position++);
+                    if (to == '\\') {
+                        final CharRanges escaped = escape();
+                        if (escaped.bounds.length != 2 || escaped.bounds[0] != escaped.bounds[1]) {
+                            throw error("Illegal character range", position);
+                        }
+                        to = (char) escaped.bounds[0];
+                    }
+                    if (to < c) {
+                        throw error("Illegal character range", position);
+                    }
+                    item = CharRanges.of(c, to);
+                } else {
+                    item = CharRanges.of(c, c);
+                }
+                ranges = ranges.union(item);
+            }
+            return negated ? ranges.complement() : ranges;
+        }
+
+        private CharRanges escape() {
+            if (!more()) {
+                throw error("Unfinished escape", position);
+            }
+            final char c = pattern.charAt(position++);
+            switch (c) {
+                case 'd':
+                    return CharRanges.of('0', '9');
+                case 'D':
+                    return CharRanges.of('0', '9').complement();
+                case 'w':
+                    return word();
+                case 'W':
+                    return word().complement();
+                case 's':
+                    return CharRanges.of(" \t\n\u000B\f\r");
+                case 'S':
+                    return CharRanges.of(" \t\n\u000B\f\r").complement();
+                case 'p':
+                    return category();
+                case 'P':
+                    return category().complement();
+                case 't':
+                    return CharRanges.of('\t', '\t');
+                case 'n':
+                    return CharRanges.of('\n', '\n');
+                case 'r':
+                    return CharRanges.of('\r', '\r');
+                case 'f':
+                    return CharRanges.of('\f', '\f');
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        throw error("Unsupported escape '\\" + c + "'", position - 1);
+                    }
+                    return CharRanges.of(c, c);
+            }
+        }
+
+        private static CharRanges word() {
+            return CharRanges.of('a', 'z').union(CharRanges.of('A', 'Z')).union(CharRanges.of('0', '9'))
+                    .union(CharRanges.of('_', '_'));
+        }
+
+        private CharRanges category() {
+            final int close = pattern.indexOf('}', position);
+            if (!more() || pattern.charAt(position) != '{' || close < 0) {
+                throw error("Malformed character category", position);
+            }
+            final String name = pattern.substring(position + 1, close);
+            position = close + 1;
+            switch (name) {
+                case "L":
+                    return CharRanges.matching(Character::isLetter);
+                case "Lu":
+                    return CharRanges.matching(c -> Character.getType(c) == Character.UPPERCASE_LETTER);
+                case "Ll":
+                    return CharRanges.matching(c -> Character.getType(c) == Character.LOWERCASE_LETTER);
+                case "N":
+                    return CharRanges.matching(c -> {
+                        final int type = Character.getType(c);
+                        return type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER
+                                || type == Character.OTHER_NUMBER;
+                    });
+                case "Nd":
+                    return CharRanges.matching(c -> Character.getType(c) == Character.DECIMAL_DIGIT_NUMBER);
+                case "P":
+                    return CharRanges.matching(StopPatternAutomaton::isPunctuation);
+                case "S":
+                    return CharRanges.matching(c -> {
+                        final int type = Character.getType(c);
+                        return type == Character.MATH_SYMBOL || type == Character.CURRENCY_SYMBOL
+                                || type == Character.MODIFIER_SYMBOL || type == Character.OTHER_SYMBOL;
+                    });
+                case "Z":
+                    return CharRanges.matching(c -> {
+                        final int type = Character.getType(c);
+                        return type == Character.SPACE_SEPARATOR || type == Character.LINE_SEPARATOR
+                                || type == Character.PARAGRAPH_SEPARATOR;
+                    });
+                case "Punct":
+                    return CharRanges.of("!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~");
+                case "Alpha":
+                    return CharRanges.of('a', 'z').union(CharRanges.of('A', 'Z'));
+                case "Digit":
+                    return CharRanges.of('0', '9');
+                case "Alnum":
+                    return CharRanges.of('a', 'z').union(CharRanges.of('A', 'Z')).union(CharRanges.of('0', '9'));
+                case "Upper":
+                    return CharRanges.of('A', 'Z');
+                case "Lower":
+                    return CharRanges.of('a', 'z');
+                case "Space":
+                    return CharRanges.of(" \t\n\u000B\f\r");
+                default:
+                    throw error("Unsupported character category '" + name + "'", position);
+            }
+        }
+    }
+
+    private static boolean isPunctuation(int c) {
+        switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton of stop phrases over the words of the tokens. Every distinct (case-folded) word of the phrases
+ * is a symbol of the automaton, so the tokens are fed one by one and every phrase ending at a token is found without
+ * going back over the previous tokens, in time linear in the number of tokens.
+ * <p>
+ * The automaton is immutable, a match is run by threading its state through {@link #step(int, CharSequence)}, starting
+ * with {@link #INITIAL_STATE}. {@link #matchLength(int)} of a state is the number of tokens of the longest phrase
+ * ending at the last fed token; the shorter phrases ending there are its suffixes, so marking the tokens covered by the
+ * longest one marks them as well.
+ */
+final class StopPhraseAutomaton {
+
+    /** The state to start matching from, and the state after a token which does not continue any phrase. */
+    static final int INITIAL_STATE = 0;
+
+    private static final long NO_TRANSITION = -1L;
+
+    // symbols: the folded words of the phrases, in an open addressing table
+    private final String[] symbolWords;
+    private final int[] symbolHashes;
+    private final int[] symbolIds;
+    private final int symbolMask;
+
+    // transitions of the trie, keyed by (state, symbol), in an open addressing table
+    private final long[] transitionKeys;
+    private final int[] transitionTargets;
+    private final int transitionMask;
+
+    private final int[] failure;
+    private final int[] matchLength;
+    private final int maxPhraseLength;
+    private final int phrasesCount;
+
+    /**
+     * Builds the automaton of the phrases, the words of a phrase are separated by whitespace. Blank phrases are
+     * skipped.
+     * @param phrases phrases to match
+     */
+    StopPhraseAutomaton(Collection<String> phrases) {
+        final Map<String, Integer> symbols = new HashMap<>();
+        final List<Map<Integer, Integer>> children = new ArrayList<>();
+        children.add(new HashMap<>());
+        int[] ownMatch = new int[16];
+        int longest = 0;
+        int count = 0;
+
+        for (String phrase : phrases) {
+            final String[] words = phrase.trim().split("\\s+");
+            if (words.length == 0 || words[0].isEmpty()) {
+                continue;
+            }
+            int state = INITIAL_STATE;
+            for (String word : words) {
+                final int symbol = symbols.computeIfAbsent(CaseFolding.fold(word), w -> symbols.size());
+                Integer next = children.get(state).get(symbol);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    children.get(state).put(symbol, next);
+                }
+                state = next;
+            }
+            if (state >= ownMatch.length) {
+                ownMatch = Arrays.copyOf(ownMatch, Math.max(state + 1, ownMatch.length * 2));
+            }
+            if (ownMatch[state] == 0) {
+                count++;
+            }
+            ownMatch[state] = words.length;
+            longest = Math.max(longest, words.length);
+        }
+        this.maxPhraseLength = longest;
+        this.phrasesCount = count;
+
+        final int symbolCapacity = tableSizeFor(symbols.size());
+        this.symbolWords = new String[symbolCapacity];
+        this.symbolHashes = new int[symbolCapacity];
+        this.symbolIds = new int[symbolCapacity];
+        this.symbolMask = symbolCapacity - 1;
+        for (Map.Entry<String, Integer> symbol : symbols.entrySet()) {
+            final int hash = CaseFolding.hash(symbol.getKey());
+            int i = hash & symbolMask;
+            while (symbolWords[i] != null) {
+                i = (i + 1) & symbolMask;
+            }
+            symbolWords[i] = symbol.getKey();
+            symbolHashes[i] = hash;
+            symbolIds[i] = symbol.getValue();
+        }
+
+        final int statesCount = children.size();
+        final int transitionCapacity = tableSizeFor(statesCount - 1);
+        this.transitionKeys = new long[transitionCapacity];
+        this.transitionTargets = new int[transitionCapacity];
+        this.transitionMask = transitionCapacity - 1;
+        Arrays.fill(transitionKeys, NO_TRANSITION);
+        for (int state = 0; state < statesCount; state++) {
+            for (Map.Entry<Integer, Integer> child : children.get(state).entrySet()) {
+                final long key = transitionKey(state, child.getKey());
+                int i = slot(key);
+                while (transitionKeys[i] != NO_TRANSITION) {
+                    i = (i + 1) & transitionMask;
+                }
+                transitionKeys[i] = key;
+                transitionTargets[i] = child.getValue();
+            }
+        }
+
+        // the failure links are computed breadth-first, so the link of a state always points to a shallower one,
+        // which is already complete
+        this.failure = new int[statesCount];
+        this.matchLength = Arrays.copyOf(ownMatch, statesCount);
+        final Queue<Integer> queue = new ArrayDeque<>(children.get(INITIAL_STATE).values());
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            for (Map.Entry<Integer, Integer> child : children.get(state).entrySet()) {
+                final int symbol = child.getKey();
+                final int next = child.getValue();
+                int fallback = failure[state];
+                int target = transition(fallback, symbol);
+                while (target < 0 && fallback != INITIAL_STATE) {
+                    fallback = failure[fallback];
+                    target = transition(fallback, symbol);
+                }
+                failure[next] = target < 0 ? INITIAL_STATE : target;
+                matchLength[next] = Math.max(matchLength[next], matchLength[failure[next]]);
+                queue.add(next);
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        // keep the load factor at or below 0.5, so the probe sequences stay short
+        long required = Math.max(2L, (long) expectedSize * 2);
+        if (required > 1 << 30) {
+            throw new IllegalArgumentException("Too many stop phrases");
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static long transitionKey(int state, int symbol) {
+        return ((long) state << 32) | symbol;
+    }
+
+    private int slot(long key) {
+        return (int) CaseFolding.mix64(key) & transitionMask;
+    }
+
+    private int transition(int state, int symbol) {
+        final long key = transitionKey(state, symbol);
+        int i = slot(key);
+        long candidate;
+        while ((candidate = transitionKeys[i]) != NO_TRANSITION) {
+            if (candidate == key) {
+                return transitionTargets[i];
+            }
+            i = (i + 1) & transitionMask;
+        }
+        return -1;
+    }
+
+    private int symbol(CharSequence word) {
+        final int hash = CaseFolding.hash(word);
+        int i = hash & symbolMask;
+        String candidate;
+        while ((candidate = symbolWords[i]) != null) {
+            if (symbolHashes[i] == hash && CaseFolding.equalsFolded(candidate, word)) {
+                return symbolIds[i];
+            }
+            i = (i + 1) & symbolMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Feeds the next token's word to the automaton.
+     * @param state state after the previous token, or {@link #INITIAL_STATE}
+     * @param word word of the next token, null is treated as a word of no phrase
+     * @return the state after the token
+     */
+    int step(int state, CharSequence word) {
+        final int symbol = word != null ? symbol(word) : -1;
+        if (symbol < 0) {
+            return INITIAL_STATE;
+        }
+        int current = state;
+        while (true) {
+            final int next = transition(current, symbol);
+            if (next >= 0) {
+                return next;
+            }
+            if (current == INITIAL_STATE) {
+                return INITIAL_STATE;
+            }
+            current = failure[current];
+        }
+    }
+
+    /**
+     * Returns the number of tokens of the longest phrase ending at the last token fed to reach the state.
+     * @param state state of the automaton
+     * @return the length of the longest phrase matched, or 0 if no phrase ends at the last token
+     */
+    int matchLength(int state) {
+        return matchLength[state];
+    }
+
+    /**
+     * Returns the number of tokens of the longest phrase, which is the number of the last tokens a stream has to keep
+     * to mark all the tokens of a match.
+     * @return the length of the longest phrase
+     */
+    int maxPhraseLength() {
+        return maxPhraseLength;
+    }
+
+    /**
+     * Returns the number of the distinct phrases.
+     * @return the number of the phrases
+     */
+    int size() {
+        return phrasesCount;
+    }
+
+    boolean isEmpty() {
+        return phrasesCount == 0;
+    }
+}
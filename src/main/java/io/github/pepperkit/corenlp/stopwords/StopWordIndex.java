@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.nio.CharBuffer;
+
+/**
+ * Read-only index of stop words, which is looked up case-insensitively without allocating.
+ */
+interface StopWordIndex {
+
+    /**
+     * Checks case-insensitively whether the word is in the index.
+     * @param word word to look up
+     * @return true if the folded word is in the index
+     */
+    boolean containsIgnoreCase(CharSequence word);
+
+    /**
+     * Checks case-insensitively whether the word held in a range of the array is in the index. The indexes looked up
+     * in the heap override it not to wrap the array.
+     * @param chars array holding the word
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @return true if the folded word is in the index
+     */
+    default boolean containsIgnoreCase(char[] chars, int offset, int length) {
+        return containsIgnoreCase(CharBuffer.wrap(chars, offset, length));
+    }
+
+    /**
+     * Returns the number of distinct stop words in the index.
+     * @return the number of words
+     */
+    int size();
+
+    /**
+     * Checks whether the index has no words.
+     * @return true if the index is empty
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
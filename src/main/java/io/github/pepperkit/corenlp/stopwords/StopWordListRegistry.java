@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process-wide registry of the loaded stop words indexes. The annotators configured with the same list (identified by
+ * its source, e.g. path and modification time of a file, and by the kind of the index) share one immutable index,
+ * which is released once the last annotator using it is unmounted.
+ */
+final class StopWordListRegistry {
+
+    private static final StopWordListRegistry GLOBAL = new StopWordListRegistry();
+
+    /**
+     * Loads the index, if it is not in the registry yet.
+     */
+    interface Loader {
+        StopWordIndex load() throws IOException;
+    }
+
+    /**
+     * Reference to a shared index, which should be released when the index is not used anymore.
+     */
+    final class Lease {
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        StopWordIndex index() {
+            return entry.index;
+        }
+
+        /**
+         * Releases the reference, the repeated calls have no effect.
+         */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                StopWordListRegistry.this.release(entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private int references;
+        private volatile StopWordIndex index;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private StopWordIndex load(Loader loader) throws IOException {
+            StopWordIndex loaded = index;
+            if (loaded == null) {
+                synchronized (this) {
+                    loaded = index;
+                    if (loaded == null) {
+                        loaded = loader.load();
+                        index = loaded;
+                    }
+                }
+            }
+            return loaded;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    static StopWordListRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the index registered under the key, loading it if no one holds it yet. The index is loaded at most once,
+     * concurrent requests for the same key wait for it to be loaded, while the other keys are loaded in parallel.
+     * @param key identity of the list's source and of the kind of the index
+     * @param loader loads the index, if it is not registered
+     * @return the lease of the registered index
+     * @throws IOException if the index cannot be loaded
+     */
+    Lease acquire(String key, Loader loader) throws IOException {
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.computeIfAbsent(key, Entry::new);
+            entry.references++;
+        }
+        try {
+            entry.load(loader);
+        } catch (IOException | RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+        return new Lease(entry);
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.references--;
+        if (entry.references == 0) {
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * Returns the number of the registered indexes.
+     * @return the number of indexes held by at least one lease
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+}
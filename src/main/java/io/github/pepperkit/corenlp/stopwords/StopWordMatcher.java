@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.BitSet;
+
+/**
+ * Checks whether words are stopped without CoreNLP tokens, for the callers already having the words as strings or as
+ * ranges of a character array. It is obtained from a configured annotator ({@link StopWordsAnnotator#matcher()}) and
+ * uses the same list of stop words and compiled patterns as the annotator, so both give the same decisions for the
+ * words.
+ * <p>
+ * Only the rules of the word form apply: the length of the word, the patterns and the list of stop words. The rules of
+ * the lemmas and of the POS categories, and the phrases need the annotated tokens, and are checked by the annotator
+ * only. The list is checked against the words passed, whatever `stopwords.matchOn` property is, so the lemmas can be
+ * checked by passing them instead of the words. The matcher is immutable and can be shared between any number of
+ * threads; it keeps using the list it was obtained with, if the annotator reloads the list.
+ */
+public final class StopWordMatcher {
+
+    private final int minimumWordLength;
+    private final StopPatternAutomaton patterns;
+    private final StopWordIndex stopwords;
+
+    StopWordMatcher(int minimumWordLength, StopPatternAutomaton patterns, StopWordIndex stopwords) {
+        this.minimumWordLength = minimumWordLength;
+        this.patterns = patterns;
+        this.stopwords = stopwords != null && !stopwords.isEmpty() ? stopwords : null;
+    }
+
+    /**
+     * Checks whether the word is stopped.
+     * @param word word to check, may be null
+     * @return true if the word is stopped
+     */
+    public boolean matches(CharSequence word) {
+        if (word == null) {
+            return false;
+        }
+        // the rules are checked cheapest-first, as in the annotator
+        return word.length() < minimumWordLength
+                || (patterns != null && patterns.matches(word))
+                || (stopwords != null && stopwords.containsIgnoreCase(word));
+    }
+
+    /**
+     * Checks whether the word held in a range of the array is stopped, without creating a string of it.
+     * @param chars array holding the word
+     * @param offset index of the first character of the word
+     * @param length number of the characters of the word
+     * @return true if the word is stopped
+     * @throws IndexOutOfBoundsException if the range is outside of the array
+     */
+    public boolean matches(char[] chars, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > chars.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") is out of bounds for length " + chars.length);
+        }
+        return length < minimumWordLength
+                || (patterns != null && patterns.matches(chars, offset, length))
+                || (stopwords != null && stopwords.containsIgnoreCase(chars, offset, length));
+    }
+
+    /**
+     * Checks all the words.
+     * @param words words to check, may contain nulls
+     * @return the set, where the bit at the index of a word is set if the word is stopped
+     */
+    public BitSet matchAll(CharSequence[] words) {
+        final BitSet stopped = new BitSet(words.length);
+        matchAll(words, stopped);
+        return stopped;
+    }
+
+    /**
+     * Checks all the words, reusing the set for the result.
+     * @param words words to check, may contain nulls
+     * @param stopped set, where the bit at the index of a word is set if the word is stopped and cleared otherwise
+     */
+    public void matchAll(CharSequence[] words, BitSet stopped) {
+        stopped.clear(0, words.length);
+        for (int i = 0; i < words.length; i++) {
+            if (matches(words[i])) {
+                stopped.set(i);
+            }
+        }
+    }
+
+    /**
+     * Checks all the words held in the ranges of the array, e.g. the tokens of a text.
+     * @param chars array holding the words
+     * @param offsets indexes of the first characters of the words
+     * @param lengths numbers of the characters of the words
+     * @return the set, where the bit at the index of a word is set if the word is stopped
+     */
+    public BitSet matchAll(char[] chars, int[] offsets, int[] lengths) {
+        final BitSet stopped = new BitSet(offsets.length);
+        matchAll(chars, offsets, lengths, stopped);
+        return stopped;
+    }
+
+    /**
+     * Checks all the words held in the ranges of the array, reusing the set for the result.
+     * @param chars array holding the words
+     * @param offsets indexes of the first characters of the words
+     * @param lengths numbers of the characters of the words
+     * @param stopped set, where the bit at the index of a word is set if the word is stopped and cleared otherwise
+     * @throws IllegalArgumentException if the numbers of the offsets and of the lengths differ
+     */
+    public void matchAll(char[] chars, int[] offsets, int[] lengths, BitSet stopped) {
+        if (offsets.length != lengths.length) {
+            throw new IllegalArgumentException("Got " + offsets.length + " offsets but " + lengths.length + " lengths");
+        }
+        stopped.clear(0, offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            if (matches(chars, offsets[i], lengths[i])) {
+                stopped.set(i);
+            }
+        }
+    }
+}
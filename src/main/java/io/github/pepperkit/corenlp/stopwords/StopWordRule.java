@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * A single rule, which decides whether a token is stopped. The rules are compiled from the annotator's properties
+ * into a {@link RuleChain}.
+ */
+abstract class StopWordRule {
+
+    /**
+     * Kind of the rule along with its relative cost of evaluation, used to order the rules cheapest-first.
+     */
+    enum Kind {
+        WORD_LENGTH(1),
+        LEMMA_LENGTH(1),
+        POS_CATEGORY(2),
+        PATTERN(3),
+        LIST(4);
+
+        private final int cost;
+
+        Kind(int cost) {
+            this.cost = cost;
+        }
+
+        int cost() {
+            return cost;
+        }
+    }
+
+    private final Kind kind;
+    private final List<Class<? extends CoreAnnotation>> reads;
+
+    private StopWordRule(Kind kind, List<Class<? extends CoreAnnotation>> reads) {
+        this.kind = kind;
+        this.reads = Collections.unmodifiableList(reads);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    /**
+     * Returns the token annotations the rule reads, which should be set by the annotators running before.
+     * @return the annotations read by the rule
+     */
+    List<Class<? extends CoreAnnotation>> reads() {
+        return reads;
+    }
+
+    /**
+     * Checks the token against the rule.
+     * @param token token to check
+     * @return true if the token should be stopped
+     */
+    abstract boolean test(CoreLabel token);
+
+    static StopWordRule wordShorterThan(int minimumWordLength) {
+        return new StopWordRule(Kind.WORD_LENGTH, Collections.singletonList(CoreAnnotations.TextAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return token.word().length() < minimumWordLength;
+            }
+        };
+    }
+
+    static StopWordRule lemmaShorterThan(int minimumLemmaLength) {
+        return new StopWordRule(Kind.LEMMA_LENGTH,
+                Collections.singletonList(CoreAnnotations.LemmaAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return token.lemma().length() < minimumLemmaLength;
+            }
+        };
+    }
+
+    static StopWordRule posCategoryIn(Set<String> stopPosCategories) {
+        final PosTagSet tags = new PosTagSet(stopPosCategories);
+        return new StopWordRule(Kind.POS_CATEGORY,
+                Collections.singletonList(CoreAnnotations.PartOfSpeechAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return tags.contains(token.tag());
+            }
+        };
+    }
+
+    static StopWordRule wordMatches(StopPatternAutomaton patterns) {
+        return new StopWordRule(Kind.PATTERN, Collections.singletonList(CoreAnnotations.TextAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return patterns.matches(token.word());
+            }
+        };
+    }
+
+    static StopWordRule wordIn(StopWordIndex stopwords) {
+        return new StopWordRule(Kind.LIST, Collections.singletonList(CoreAnnotations.TextAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return stopwords.containsIgnoreCase(token.word());
+            }
+        };
+    }
+
+    static StopWordRule lemmaIn(StopWordIndex stopwords) {
+        return new StopWordRule(Kind.LIST, Collections.singletonList(CoreAnnotations.LemmaAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return stopwords.containsIgnoreCase(token.lemma());
+            }
+        };
+    }
+
+    static StopWordRule wordOrLemmaIn(StopWordIndex stopwords) {
+        return new StopWordRule(Kind.LIST,
+                Arrays.asList(CoreAnnotations.TextAnnotation.class, CoreAnnotations.LemmaAnnotation.class)) {
+            @Override
+            boolean test(CoreLabel token) {
+                return stopwords.containsIgnoreCase(token.lemma()) || stopwords.containsIgnoreCase(token.word());
+            }
+        };
+    }
+}
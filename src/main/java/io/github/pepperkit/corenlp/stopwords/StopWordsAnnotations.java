@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.ErasureUtils;
+
+/**
+ * Document and sentence-level annotations set by {@link StopWordsAnnotator}, and the helpers to read them.
+ */
+public final class StopWordsAnnotations {
+
+    private StopWordsAnnotations() {
+    }
+
+    /**
+     * Stop mask of the document: the bit at a token's index in the document's
+     * {@link CoreAnnotations.TokensAnnotation} is set if the token is stopped.
+     * Set when `stopwords.output` property contains `mask`.
+     */
+    public static class StopWordsMaskAnnotation implements CoreAnnotation<BitSet> {
+        /**
+         * Creates the annotation, which is used by its class as a key.
+         */
+        public StopWordsMaskAnnotation() {
+        }
+
+        @Override
+        public Class<BitSet> getType() {
+            return BitSet.class;
+        }
+    }
+
+    /**
+     * Tokens of the document or of the sentence, which are not stopped, in their original order.
+     * Set when `stopwords.output` property contains `filtered`.
+     */
+    public static class NonStopTokensAnnotation implements CoreAnnotation<List<CoreLabel>> {
+        /**
+         * Creates the annotation, which is used by its class as a key.
+         */
+        public NonStopTokensAnnotation() {
+        }
+
+        @Override
+        public Class<List<CoreLabel>> getType() {
+            return ErasureUtils.uncheckedCast(List.class);
+        }
+    }
+
+    /**
+     * Name of the list of stop words to annotate the document with, one of the lists configured with
+     * `stopwords.lists.&lt;name&gt;.*` properties. Set on the document before it is annotated; the documents without it
+     * are annotated with the default list.
+     */
+    public static class StopWordsListAnnotation implements CoreAnnotation<String> {
+        /**
+         * Creates the annotation, which is used by its class as a key.
+         */
+        public StopWordsListAnnotation() {
+        }
+
+        @Override
+        public Class<String> getType() {
+            return String.class;
+        }
+    }
+
+    /**
+     * Checks whether the token is stopped, using the document's stop mask.
+     * @param document annotated document
+     * @param tokenIndex zero-based index of the token in the document's tokens
+     * @return true if the token is stopped
+     * @throws IllegalStateException if the document does not have the stop mask
+     */
+    public static boolean isStopped(CoreMap document, int tokenIndex) {
+        return mask(document).get(tokenIndex);
+    }
+
+    /**
+     * Iterates over the tokens of the document, which are not stopped, using the document's stop mask.
+     * @param document annotated document
+     * @return the tokens which are not stopped
+     * @throws IllegalStateException if the document does not have the stop mask
+     */
+    public static Iterable<CoreLabel> nonStoppedTokens(CoreMap document) {
+        final List<CoreLabel> tokens = document.get(CoreAnnotations.TokensAnnotation.class);
+        return nonStoppedTokens(tokens, mask(document), 0, tokens.size());
+    }
+
+    /**
+     * Iterates over the tokens of the sentence, which are not stopped, using the stop mask of the document the
+     * sentence belongs to.
+     * @param document annotated document
+     * @param sentence sentence of the document, with {@link CoreAnnotations.TokenBeginAnnotation} and
+     *                 {@link CoreAnnotations.TokenEndAnnotation} set by the sentence splitter
+     * @return the tokens of the sentence which are not stopped
+     * @throws IllegalStateException if the document does not have the stop mask
+     */
+    public static Iterable<CoreLabel> nonStoppedTokens(CoreMap document, CoreMap sentence) {
+        final List<CoreLabel> tokens = document.get(CoreAnnotations.TokensAnnotation.class);
+        return nonStoppedTokens(tokens, mask(document),
+                sentence.get(CoreAnnotations.TokenBeginAnnotation.class),
+                sentence.get(CoreAnnotations.TokenEndAnnotation.class));
+    }
+
+    private static BitSet mask(CoreMap document) {
+        final BitSet mask = document.get(StopWordsMaskAnnotation.class);
+        if (mask == null) {
+            throw new IllegalStateException("The document does not have the stop mask, "
+                    + "check that stopwords.output property contains mask");
+        }
+        return mask;
+    }
+
+    private static Iterable<CoreLabel> nonStoppedTokens(List<CoreLabel> tokens, BitSet mask, int from, int to) {
+        return () -> new Iterator<CoreLabel>() {
+            private int next = mask.nextClearBit(from);
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public CoreLabel next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final CoreLabel token = tokens.get(next);
+                next = mask.nextClearBit(next + 1);
+                return token;
+            }
+        };
+    }
+}
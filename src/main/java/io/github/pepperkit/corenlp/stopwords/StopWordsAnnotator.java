@@ -10,13 +10,23 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import edu.stanford.nlp.ling.CoreAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations;
@@ -24,6 +34,8 @@ import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.Annotator;
 import edu.stanford.nlp.util.ArraySet;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.logging.Redwood;
 
 /**
  * Annotator for CoreNLP library, allows to add the set of rules or/and the word themselves, which should be filtered
@@ -34,18 +46,103 @@ public class StopWordsAnnotator implements Annotator, CoreAnnotation<Boolean> {
     /** This name is used to identify the annotator. */
     public static final String ANNOTATOR_NAME = "stopwords";
 
+    private static final Redwood.RedwoodChannels LOG = Redwood.channels(StopWordsAnnotator.class);
+
+    private static final AtomicReferenceFieldUpdater<StopWordsAnnotator, RuleChain> RULES =
+            AtomicReferenceFieldUpdater.newUpdater(StopWordsAnnotator.class, RuleChain.class, "rules");
+
     private static final String STOP_POS_CATEGORIES = "withPosCategories";
     private static final String STOP_ALL_WORDS_SHORTER_THAN = "shorterThan";
     private static final String STOP_ALL_LEMMAS_SHORTER_THAN = "withLemmasShorterThan";
+    private static final String STOP_PATTERNS = "patterns";
 
     private static final String STOP_WORDS_FILE_PATH = "customListFilePath";
     private static final String STOP_WORDS_RESOURCES_FILE_PATH = "customListResourcesFilePath";
+    private static final String STOP_WORDS_COMPILED_FILE_PATH = "compiledListFilePath";
+    private static final String STOP_WORDS_INDEX = "index";
+    private static final String HASH_INDEX = "hash";
+    private static final String PERFECT_HASH_INDEX = "mphf";
+    private static final String OFF_HEAP_INDEX = "offheap";
     private static final String STOP_WORDS_LIST = "customList";
+    private static final String NAMED_LISTS = "lists.";
+    private static final String NAMED_LIST_FILE_PATH = ".filePath";
+    private static final String NAMED_LIST_RESOURCES_FILE_PATH = ".resourcesFilePath";
+    private static final String NAMED_LIST_COMPILED_FILE_PATH = ".compiledFilePath";
+    private static final String NAMED_LIST_WORDS = ".customList";
+    private static final String NORMALIZATION = "normalization";
+    private static final String NO_NORMALIZATION = "none";
+    private static final String NFKC_NORMALIZATION = "nfkc";
+    private static final String STOP_PHRASES_FILE_PATH = "customPhraseListFilePath";
+
+    private static final String ADAPTIVE_ORDERING = "adaptiveOrdering";
+    private static final String ADAPTIVE_ORDERING_WINDOW = "adaptiveOrdering.window";
+    private static final int DEFAULT_ADAPTIVE_ORDERING_WINDOW = 100_000;
+
+    private static final String THREADS = "threads";
+    private static final String PARALLEL_THRESHOLD = "parallel.threshold";
+    private static final String PARALLEL_CHUNK_SIZE = "parallel.chunkSize";
+    private static final int DEFAULT_PARALLEL_CHUNK_SIZE = 8192;
+    /** The chunks are multiples of the 64 bits of a word of the mask, so every word is set by a single task. */
+    private static final int MASK_WORD_BITS = 64;
 
-    Set<String> stopwords;
-    Set<String> stopPosCategories = new HashSet<>();
-    int minimumWordLength = 0;
-    int minimumLemmaLength = 0;
+    private static final String CACHE_SIZE = "cache.size";
+    private static final int MAX_CACHE_SIZE = 1 << 30;
+
+    private static final String RELOAD = "reload";
+    private static final String RELOAD_INTERVAL = "reload.interval";
+    private static final String NO_RELOAD = "none";
+    private static final String WATCH_RELOAD = "watch";
+    private static final long DEFAULT_RELOAD_INTERVAL = 1000;
+
+    private static final String METRICS_CLASS = "metrics.class";
+
+    private static final String OUTPUT = "output";
+    private static final String MATCH_ON = "matchOn";
+
+    /** Ways the annotator outputs the decisions, configured with `stopwords.output` property. */
+    private enum Output {
+        /** {@link StopWordsAnnotator} annotation set on every token. */
+        LABELS,
+        /** {@link StopWordsAnnotations.StopWordsMaskAnnotation} set on the document. */
+        MASK,
+        /** {@link StopWordsAnnotations.NonStopTokensAnnotation} set on the document and its sentences. */
+        FILTERED
+    }
+
+    /** Forms of a token looked up in the list of stop words, configured with `stopwords.matchOn` property. */
+    private enum MatchOn {
+        WORD,
+        LEMMA
+    }
+
+    volatile StopWordIndex stopwords;
+    private StopWordListRegistry.Lease stopWordsLease;
+    private final Map<String, RuleChain> namedRules;
+    private final List<StopWordListRegistry.Lease> namedListsLeases;
+    private final Properties listProperties;
+    private final boolean nfkc;
+    private final StopWordsFileWatcher watcher;
+    final Set<String> stopPosCategories;
+    final int minimumWordLength;
+    final int minimumLemmaLength;
+    final StopPatternAutomaton stopPatterns;
+
+    private final Set<MatchOn> matchOn;
+    final StopPhraseAutomaton stopPhrases;
+    private final boolean phrasesOnLemmas;
+    private volatile RuleChain rules;
+    private volatile StopWordMatcher matcher;
+    private final AdaptiveRuleOrdering adaptiveOrdering;
+    private final int cacheSize;
+    private final VerdictCache.Counters verdictCounters = new VerdictCache.Counters();
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int parallelChunkSize;
+    private final StopWordsMetrics metrics;
+    private final boolean metricsEnabled;
+    private final boolean labelsOutput;
+    private final boolean maskOutput;
+    private final boolean filteredOutput;
 
     /**
      * Constructs a new StopWordsAnnotator with the specified annotator's name and properties
@@ -67,70 +164,481 @@ public class StopWordsAnnotator implements Annotator, CoreAnnotation<Boolean> {
      *     `stopwords.customList`, `stopwords.customListFilePath`, and `stopwords.customListResourcesFilePath`
      *     properties (if all of the properties are provided, only one list of words will be initialized from a provided
      *     property, the order of precedence: string with words, from a file, from a bundled resource);</li>
+     *     <li>provided list of words compiled by {@link StopWordsListCompiler}, which is memory-mapped instead of being
+     *     loaded into the heap - `stopwords.compiledListFilePath` property (it takes precedence over a bundled resource,
+     *     but not over a string with words or a text file);</li>
+     *     <li>the index, which keeps a list of words provided as a string, a file or a resource - `stopwords.index`
+     *     property: `hash` (by default) for a hash table of the words, `mphf` for a compact minimal perfect hash
+     *     index of large lists, which does not store the words and may stop about one in 65536 other words, or
+     *     `offheap` for a hash table of UTF-8 words stored outside of the heap, for the lists of millions of words;</li>
      *     <li>POS (part-of-speech) categories as a string containing a comma-separated list of the categories -
      *     `stopwords.withPosCategories` property;</li>
      *     <li>the length of a word or its lemma - `stopwords.shorterThan` and `stopwords.withLemmasShorterThan`
-     *     properties.</li>
+     *     properties;</li>
+     *     <li>patterns of the words, e.g. `^[\d\p{Punct}]+$` or `^[#@]`, in a subset of the regular expressions syntax
+     *     described by {@link StopPatternAutomaton}, as a string containing whitespace-separated patterns -
+     *     `stopwords.patterns` property;</li>
+     *     <li>provided list of phrases, which stop all their tokens - `stopwords.customPhraseListFilePath` property,
+     *     a file with newline-separated phrases, containing whitespace-separated words.</li>
      * </ul>
+     * Besides the default list, any number of named lists can be configured with `stopwords.lists.&lt;name&gt;.filePath`,
+     * `stopwords.lists.&lt;name&gt;.resourcesFilePath`, `stopwords.lists.&lt;name&gt;.compiledFilePath` or
+     * `stopwords.lists.&lt;name&gt;.customList` properties. A document is annotated with the named list set as its
+     * {@link StopWordsAnnotations.StopWordsListAnnotation}, along with all the other rules.
+     * The lists of words are shared between the annotators of the process: the annotators configured with the same
+     * list (and the same index) use a single instance of it, until the last of them is unmounted.
+     * If `stopwords.reload` property is `watch`, the file of `stopwords.customListFilePath` or
+     * `stopwords.compiledListFilePath` property is checked for changes every `stopwords.reload.interval` milliseconds
+     * (1000 by default), and the changed list is loaded in the background and swapped in atomically: the documents
+     * being annotated keep using the previous list.
+     * The words are matched case-insensitively, using the Unicode simple case folding, which does not depend on the
+     * default locale. If `stopwords.normalization` property is `nfkc` (`none` by default), the words of the list and
+     * the looked up words are also normalized to the NFKC form, e.g. the full-width letters or the ligatures are
+     * matched as the letters they stand for.
+     * The list of words is matched against the words and the lemmas of the tokens, `stopwords.matchOn` property
+     * restricts it to either `word` or `lemma`. Only the annotations read by the configured rules are required, so
+     * if the word form is matched (and neither the POS categories, nor the lemmas length are used), the annotator
+     * needs only the tokenizer in the pipeline. The phrases are matched against the words of the tokens, or against
+     * their lemmas if `stopwords.matchOn` property is `lemma`.
+     * The decisions are set as {@link StopWordsAnnotator} annotation of every token, and/or as a stop mask of the
+     * document ({@link StopWordsAnnotations.StopWordsMaskAnnotation}), and/or as lists of the tokens, which are not
+     * stopped, of the document and of every its sentence ({@link StopWordsAnnotations.NonStopTokensAnnotation}) -
+     * `stopwords.output` property, containing a comma-separated list of `labels` (by default), `mask` and `filtered`.
+     * The configured rules are compiled into a chain, which checks the cheapest rules first. If
+     * `stopwords.adaptiveOrdering` property is true, the chain is reordered every `stopwords.adaptiveOrdering.window`
+     * tokens (100000 by default), so the rules stopping the most tokens for their cost are checked first.
+     * If `stopwords.cache.size` property is set, up to that number of the decisions of the patterns and the lists are
+     * cached by the word, the lemma and the POS tag of the token (only by the ones these rules read), so the frequent
+     * tokens not stopped by the cheaper rules are not checked against them again; see {@link #cacheStats()}.
+     * If `stopwords.parallel.threshold` property is set, the tokens of a document having at least that number of them
+     * are decided in parallel, in chunks of `stopwords.parallel.chunkSize` tokens (8192 by default), using the pool of
+     * {@link #annotateAll(Collection)}; the phrases are still matched sequentially, after the chunks are decided.
+     * If `stopwords.metrics.class` property is set, the metrics of the annotator are recorded by the instance of that
+     * {@link StopWordsMetrics} class.
      * @param props properties for the annotator
      * @throws IOException if the list of stop words is specified in a file and the file cannot be read
      */
     public StopWordsAnnotator(Properties props) throws IOException {
+        this(props, createMetrics(props));
+    }
+
+    /**
+     * Constructs a new StopWordsAnnotator with the specified properties ({@link #StopWordsAnnotator(Properties)}),
+     * recording its metrics.
+     * @param props properties for the annotator
+     * @param metrics receiver of the metrics, or {@link StopWordsMetrics#noop()} not to record them
+     * @throws IOException if the list of stop words is specified in a file and the file cannot be read
+     */
+    public StopWordsAnnotator(Properties props, StopWordsMetrics metrics) throws IOException {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.metricsEnabled = metrics != NoopStopWordsMetrics.INSTANCE;
+
         if (props.containsKey(globalPropertyName(STOP_POS_CATEGORIES))) {
             final String[] posCategories = props.getProperty(globalPropertyName(STOP_POS_CATEGORIES)).split(",");
-            this.stopPosCategories = Arrays.stream(posCategories)
+            this.stopPosCategories = Collections.unmodifiableSet(Arrays.stream(posCategories)
                     .map(pc -> pc.trim().toUpperCase())
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toSet()));
+        } else {
+            this.stopPosCategories = Collections.emptySet();
+        }
+
+        this.minimumWordLength = Integer.parseInt(
+                props.getProperty(globalPropertyName(STOP_ALL_WORDS_SHORTER_THAN), "0"));
+        this.minimumLemmaLength = Integer.parseInt(
+                props.getProperty(globalPropertyName(STOP_ALL_LEMMAS_SHORTER_THAN), "0"));
+
+        if (props.containsKey(globalPropertyName(STOP_PATTERNS))) {
+            final String patterns = props.getProperty(globalPropertyName(STOP_PATTERNS)).trim();
+            this.stopPatterns = patterns.isEmpty()
+                    ? null
+                    : new StopPatternAutomaton(Arrays.asList(patterns.split("\\s+")));
+        } else {
+            this.stopPatterns = null;
+        }
+
+        this.matchOn = parseMatchOn(props.getProperty(globalPropertyName(MATCH_ON), "word,lemma"));
+        this.phrasesOnLemmas = !matchOn.contains(MatchOn.WORD);
+        if (props.containsKey(globalPropertyName(STOP_PHRASES_FILE_PATH))) {
+            final StopPhraseAutomaton phrases = new StopPhraseAutomaton(loadStopWordsFromFile(
+                    Paths.get(props.getProperty(globalPropertyName(STOP_PHRASES_FILE_PATH)))));
+            this.stopPhrases = phrases.isEmpty() ? null : phrases;
+        } else {
+            this.stopPhrases = null;
+        }
+
+        final Set<Output> outputs = parseOutputs(props.getProperty(globalPropertyName(OUTPUT), "labels"));
+        this.labelsOutput = outputs.contains(Output.LABELS);
+        this.maskOutput = outputs.contains(Output.MASK);
+        this.filteredOutput = outputs.contains(Output.FILTERED);
+
+        if (Boolean.parseBoolean(props.getProperty(globalPropertyName(ADAPTIVE_ORDERING)))) {
+            this.adaptiveOrdering = new AdaptiveRuleOrdering(Integer.parseInt(props.getProperty(
+                    globalPropertyName(ADAPTIVE_ORDERING_WINDOW), String.valueOf(DEFAULT_ADAPTIVE_ORDERING_WINDOW))));
+        } else {
+            this.adaptiveOrdering = null;
+        }
+
+        this.cacheSize = Integer.parseInt(props.getProperty(globalPropertyName(CACHE_SIZE), "0"));
+        if (cacheSize < 0 || cacheSize > MAX_CACHE_SIZE) {
+            throw new IllegalArgumentException("Size of the stop words cache should be between 0 and " + MAX_CACHE_SIZE
+                    + ", got " + cacheSize);
         }
 
-        if (props.containsKey(globalPropertyName(STOP_ALL_WORDS_SHORTER_THAN))) {
-            this.minimumWordLength = Integer.parseInt(
-                    props.getProperty(globalPropertyName(STOP_ALL_WORDS_SHORTER_THAN)));
+        final int threads = props.containsKey(globalPropertyName(THREADS))
+                ? Integer.parseInt(props.getProperty(globalPropertyName(THREADS)))
+                : 0;
+        this.parallelThreshold = Integer.parseInt(props.getProperty(globalPropertyName(PARALLEL_THRESHOLD), "0"));
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Threshold of the parallel annotation should not be negative, got "
+                    + parallelThreshold);
+        }
+        final int chunkSize = Integer.parseInt(props.getProperty(globalPropertyName(PARALLEL_CHUNK_SIZE),
+                String.valueOf(DEFAULT_PARALLEL_CHUNK_SIZE)));
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE - MASK_WORD_BITS) {
+            throw new IllegalArgumentException("Chunk size of the parallel annotation should be positive, got "
+                    + chunkSize);
+        }
+        this.parallelChunkSize = (chunkSize + MASK_WORD_BITS - 1) / MASK_WORD_BITS * MASK_WORD_BITS;
+
+        final String reload = props.getProperty(globalPropertyName(RELOAD), NO_RELOAD);
+        final Path watchedFile;
+        if (WATCH_RELOAD.equals(reload)) {
+            watchedFile = watchedFile(props);
+        } else if (NO_RELOAD.equals(reload)) {
+            watchedFile = null;
+        } else {
+            throw new IllegalArgumentException("Unknown stop words reload mode: " + reload);
+        }
+        final long reloadInterval = Long.parseLong(props.getProperty(globalPropertyName(RELOAD_INTERVAL),
+                String.valueOf(DEFAULT_RELOAD_INTERVAL)));
+
+        final String normalization = props.getProperty(globalPropertyName(NORMALIZATION), NO_NORMALIZATION);
+        if (!NO_NORMALIZATION.equals(normalization) && !NFKC_NORMALIZATION.equals(normalization)) {
+            throw new IllegalArgumentException("Unknown stop words normalization: " + normalization);
+        }
+        this.nfkc = NFKC_NORMALIZATION.equals(normalization);
+
+        // the list is acquired after all the other properties are validated, so it is not leaked on a failure
+        this.listProperties = (Properties) props.clone();
+        this.stopWordsLease = initializeStopWordsList(null, props);
+        this.stopwords = stopWordsLease != null ? lookupIndex(stopWordsLease) : null;
+        this.rules = compileRules(stopwords);
+        this.matcher = new StopWordMatcher(minimumWordLength, stopPatterns, stopwords);
+        this.namedListsLeases = new ArrayList<>();
+        try {
+            this.namedRules = initializeNamedLists(props);
+        } catch (IOException | RuntimeException e) {
+            releaseStopWordsLists();
+            throw e;
+        }
+        this.pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        this.watcher = watchedFile != null
+                ? new StopWordsFileWatcher(watchedFile, reloadInterval, this::reloadStopWordsList)
+                : null;
+    }
+
+    /**
+     * Acquires the named lists, configured with `stopwords.lists.&lt;name&gt;.*` properties, and compiles the rules
+     * using every of them. A named list is acquired exactly as the default list configured with the same properties,
+     * so it is shared with the annotators using it as their default list.
+     */
+    private Map<String, RuleChain> initializeNamedLists(Properties props) throws IOException {
+        final String prefix = globalPropertyName(NAMED_LISTS);
+        final Map<String, Properties> lists = new TreeMap<>();
+        for (String property : props.stringPropertyNames()) {
+            if (!property.startsWith(prefix)) {
+                continue;
+            }
+            final String rest = property.substring(prefix.length());
+            final int dot = rest.lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("Malformed stop words list property: " + property);
+            }
+            final String name = rest.substring(0, dot);
+            final String source;
+            switch (rest.substring(dot)) {
+                case NAMED_LIST_FILE_PATH:
+                    source = STOP_WORDS_FILE_PATH;
+                    break;
+                case NAMED_LIST_RESOURCES_FILE_PATH:
+                    source = STOP_WORDS_RESOURCES_FILE_PATH;
+                    break;
+                case NAMED_LIST_COMPILED_FILE_PATH:
+                    source = STOP_WORDS_COMPILED_FILE_PATH;
+                    break;
+                case NAMED_LIST_WORDS:
+                    source = STOP_WORDS_LIST;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown stop words list property: " + property);
+            }
+            final Properties listProps = lists.computeIfAbsent(name, n -> {
+                final Properties p = new Properties();
+                copyProperty(props, p, STOP_WORDS_INDEX);
+                copyProperty(props, p, NORMALIZATION);
+                return p;
+            });
+            listProps.setProperty(globalPropertyName(source), props.getProperty(property));
         }
 
-        if (props.containsKey(globalPropertyName(STOP_ALL_LEMMAS_SHORTER_THAN))) {
-            this.minimumLemmaLength = Integer.parseInt(
-                    props.getProperty(globalPropertyName(STOP_ALL_LEMMAS_SHORTER_THAN)));
+        final Map<String, RuleChain> named = new HashMap<>();
+        for (Map.Entry<String, Properties> list : lists.entrySet()) {
+            final StopWordListRegistry.Lease lease = initializeStopWordsList(list.getKey(), list.getValue());
+            namedListsLeases.add(lease);
+            named.put(list.getKey(), compileRules(lookupIndex(lease)));
         }
+        return Collections.unmodifiableMap(named);
+    }
+
+    private static StopWordsMetrics createMetrics(Properties props) {
+        final String className = props.getProperty(globalPropertyName(METRICS_CLASS));
+        if (className == null) {
+            return StopWordsMetrics.noop();
+        }
+        try {
+            return Class.forName(className).asSubclass(StopWordsMetrics.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Cannot create the stop words metrics: " + className, e);
+        }
+    }
 
-        this.initializeStopWordsList(props);
+    private static void copyProperty(Properties from, Properties to, String privatePropertyName) {
+        final String value = from.getProperty(globalPropertyName(privatePropertyName));
+        if (value != null) {
+            to.setProperty(globalPropertyName(privatePropertyName), value);
+        }
+    }
+
+    private static Path watchedFile(Properties props) {
+        if (props.containsKey(globalPropertyName(STOP_WORDS_LIST))) {
+            throw new IllegalArgumentException("Only the stop words lists from files can be reloaded");
+        } else if (props.containsKey(globalPropertyName(STOP_WORDS_FILE_PATH))) {
+            return Paths.get(props.getProperty(globalPropertyName(STOP_WORDS_FILE_PATH)));
+        } else if (props.containsKey(globalPropertyName(STOP_WORDS_COMPILED_FILE_PATH))) {
+            return Paths.get(props.getProperty(globalPropertyName(STOP_WORDS_COMPILED_FILE_PATH)));
+        }
+        throw new IllegalArgumentException("Only the stop words lists from files can be reloaded");
+    }
+
+    /**
+     * Loads the changed list of stop words and swaps in the rules using it. Runs on the watcher's thread, so the
+     * annotating threads are not blocked, and only read the new rules once they are ready.
+     * @return false if the list cannot be loaded, so it is loaded again on the next check of the file
+     */
+    private synchronized boolean reloadStopWordsList() {
+        if (stopWordsLease == null) {
+            // already unmounted
+            return true;
+        }
+        final StopWordListRegistry.Lease lease;
+        try {
+            lease = initializeStopWordsList(null, listProperties);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Cannot reload the stop words list, the previous one is kept: " + e);
+            return false;
+        }
+
+        final StopWordListRegistry.Lease previous = stopWordsLease;
+        final StopWordIndex index = lookupIndex(lease);
+        stopWordsLease = lease;
+        stopwords = index;
+        rules = compileRules(index);
+        matcher = new StopWordMatcher(minimumWordLength, stopPatterns, index);
+        previous.release();
+        return true;
+    }
+
+    private StopWordIndex lookupIndex(StopWordListRegistry.Lease lease) {
+        return nfkc ? new NormalizingStopWordIndex(lease.index()) : lease.index();
     }
 
     private static String globalPropertyName(String privatePropertyName) {
         return ANNOTATOR_NAME + "." + privatePropertyName;
     }
 
-    private void initializeStopWordsList(Properties props) throws IOException {
+    private static Set<Output> parseOutputs(String outputs) {
+        final Set<Output> parsed = EnumSet.noneOf(Output.class);
+        for (String output : outputs.split(",")) {
+            try {
+                parsed.add(Output.valueOf(output.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown stop words annotator output: " + output, e);
+            }
+        }
+        return parsed;
+    }
+
+    private static Set<MatchOn> parseMatchOn(String forms) {
+        final Set<MatchOn> parsed = EnumSet.noneOf(MatchOn.class);
+        for (String form : forms.split(",")) {
+            try {
+                parsed.add(MatchOn.valueOf(form.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown form of a token to match stop words on: " + form, e);
+            }
+        }
+        return parsed;
+    }
+
+    private RuleChain compileRules(StopWordIndex stopwords) {
+        List<StopWordRule> configuredRules = new ArrayList<>();
+        if (minimumWordLength > 0) {
+            configuredRules.add(StopWordRule.wordShorterThan(minimumWordLength));
+        }
+        if (minimumLemmaLength > 0) {
+            configuredRules.add(StopWordRule.lemmaShorterThan(minimumLemmaLength));
+        }
+        if (!stopPosCategories.isEmpty()) {
+            configuredRules.add(StopWordRule.posCategoryIn(stopPosCategories));
+        }
+        if (stopPatterns != null) {
+            configuredRules.add(StopWordRule.wordMatches(stopPatterns));
+        }
+        if (stopwords != null && !stopwords.isEmpty()) {
+            if (!matchOn.contains(MatchOn.LEMMA)) {
+                configuredRules.add(StopWordRule.wordIn(stopwords));
+            } else if (!matchOn.contains(MatchOn.WORD)) {
+                configuredRules.add(StopWordRule.lemmaIn(stopwords));
+            } else {
+                configuredRules.add(StopWordRule.wordOrLemmaIn(stopwords));
+            }
+        }
+        return RuleChain.cheapestFirst(configuredRules, cacheSize, verdictCounters);
+    }
+
+    /**
+     * Acquires the list of stop words from the process-wide registry, so the annotators configured with the same list
+     * share one index. The list is identified by its source, by the kind of the index and by the normalization of its
+     * words: a string with words by its digest, a file by its path, modification time and size, a resource by its
+     * path. The compiled lists are normalized when compiled, and are identified by the file and the normalization they
+     * are expected to have, which is checked against the one recorded in the file.
+     */
+    private StopWordListRegistry.Lease initializeStopWordsList(String listName, Properties props) throws IOException {
+        final StopWordListRegistry registry = StopWordListRegistry.global();
+        final String index = props.getProperty(globalPropertyName(STOP_WORDS_INDEX), HASH_INDEX);
+        final String kind = nfkc ? index + "+" + NFKC_NORMALIZATION : index;
         if (props.containsKey(globalPropertyName(STOP_WORDS_LIST))) {
             final String stopWordsListString = props.getProperty(globalPropertyName(STOP_WORDS_LIST));
-            this.stopwords = Arrays.stream(stopWordsListString
-                    .split(","))
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toSet());
+            return registry.acquire("list:" + kind + ":" + digest(stopWordsListString), measured(listName,
+                    "customList", stopWordsListString.getBytes(StandardCharsets.UTF_8).length,
+                    () -> createIndex(Arrays.asList(stopWordsListString.split(",")), index)));
 
         } else if (props.containsKey(globalPropertyName(STOP_WORDS_FILE_PATH))) {
-            final String filePath = props.getProperty(globalPropertyName(STOP_WORDS_FILE_PATH));
-            this.stopwords = loadStopWordsFromFile(filePath);
+            final Path filePath = Paths.get(props.getProperty(globalPropertyName(STOP_WORDS_FILE_PATH)));
+            return registry.acquire("file:" + kind + ":" + fileIdentity(filePath), measured(listName,
+                    "file:" + filePath, Files.size(filePath),
+                    () -> OFF_HEAP_INDEX.equals(index)
+                            ? loadOffHeapIndex(filePath)
+                            : createIndex(loadStopWordsFromFile(filePath), index)));
+
+        } else if (props.containsKey(globalPropertyName(STOP_WORDS_COMPILED_FILE_PATH))) {
+            final Path filePath = Paths.get(props.getProperty(globalPropertyName(STOP_WORDS_COMPILED_FILE_PATH)));
+            final String normalization = nfkc ? NFKC_NORMALIZATION : NO_NORMALIZATION;
+            return registry.acquire("compiled:" + normalization + ":" + fileIdentity(filePath), measured(listName,
+                    "compiled:" + filePath, Files.size(filePath),
+                    () -> CompiledStopWordIndex.map(filePath, nfkc)));
 
         } else if (props.containsKey(globalPropertyName(STOP_WORDS_RESOURCES_FILE_PATH))) {
             final String resourcePath = props.getProperty(globalPropertyName(STOP_WORDS_RESOURCES_FILE_PATH));
-            this.stopwords = loadStopWordsFromResource(resourcePath);
+            return registry.acquire("resource:" + kind + ":" + resourcePath, measured(listName,
+                    "resource:" + resourcePath, -1,
+                    () -> createIndex(loadStopWordsFromResource(resourcePath), index)));
         }
+        return null;
+    }
+
+    /**
+     * Wraps the loader of a list, so the loading is recorded as a flight recorder event and reported to the metrics.
+     * The size of the source is -1 if it is not known (for a resource).
+     */
+    private StopWordListRegistry.Loader measured(String listName, String source, long sourceBytes,
+            StopWordListRegistry.Loader loader) {
+        return () -> {
+            final ListLoadEvent event = ListLoadEvent.start();
+            final long start = metricsEnabled ? System.nanoTime() : 0;
+            final StopWordIndex index = loader.load();
+            if (metricsEnabled) {
+                metrics.listLoaded(listName, index.size(), System.nanoTime() - start);
+            }
+            event.finish(source, index.size(), sourceBytes);
+            return index;
+        };
     }
 
-    private Set<String> loadStopWordsFromFile(String filePathStr) throws IOException {
-        Path filePath = Paths.get(filePathStr);
+    private static String fileIdentity(Path filePath) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        return filePath.toAbsolutePath().normalize() + ":" + attributes.lastModifiedTime().toMillis()
+                + ":" + attributes.size();
+    }
+
+    private static String digest(String list) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(list.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private StopWordIndex createIndex(List<String> words, String index) throws IOException {
+        final List<String> normalized = nfkc
+                ? words.stream().map(word -> CaseFolding.normalize(word).toString()).collect(Collectors.toList())
+                : words;
+        final IndexBuildEvent event = IndexBuildEvent.start();
+        final StopWordIndex built = buildIndex(normalized, index);
+        event.finish(index, built.size());
+        return built;
+    }
+
+    private StopWordIndex buildIndex(List<String> normalized, String index) throws IOException {
+        switch (index) {
+            case HASH_INDEX:
+                return new CaseInsensitiveStringSet(normalized);
+            case PERFECT_HASH_INDEX:
+                return new PerfectHashStopWordIndex(normalized);
+            case OFF_HEAP_INDEX:
+                return logOffHeapIndex(
+                        CompiledStopWordIndex.wrap(CompiledStopWordIndex.compile(normalized, nfkc, true), nfkc));
+            default:
+                throw new IllegalArgumentException("Unknown stop words index: " + index);
+        }
+    }
+
+    /**
+     * Builds the off-heap index streaming the words of the file, so even the largest lists are never held in the heap
+     * as a whole.
+     */
+    private StopWordIndex loadOffHeapIndex(Path filePath) throws IOException {
+        final IndexBuildEvent event = IndexBuildEvent.start();
+        final ByteBuffer buffer = CompiledStopWordIndex.compileDirect(filePath, nfkc);
+        final StopWordIndex index = logOffHeapIndex(CompiledStopWordIndex.wrap(buffer, nfkc));
+        event.finish(OFF_HEAP_INDEX, index.size());
+        return index;
+    }
+
+    private static StopWordIndex logOffHeapIndex(CompiledStopWordIndex index) {
+        LOG.info("Stop words list of " + index.size() + " words is stored off-heap in " + index.offHeapBytes()
+                + " bytes");
+        return index;
+    }
+
+    private static List<String> loadStopWordsFromFile(Path filePath) throws IOException {
         try (Stream<String> s = Files.lines(filePath)) {
-            return s.map(String::toLowerCase).collect(Collectors.toSet());
+            return s.collect(Collectors.toList());
         }
     }
 
-    private Set<String> loadStopWordsFromResource(String resourcePath) throws IOException {
+    private List<String> loadStopWordsFromResource(String resourcePath) throws IOException {
         try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resourcePath)) {
             if (inputStream != null) {
                 return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
                         .lines()
-                        .collect(Collectors.toSet());
+                        .collect(Collectors.toList());
             } else {
                 throw new IOException("Cannot read stop words resources file: " + resourcePath);
             }
@@ -139,35 +647,492 @@ public class StopWordsAnnotator implements Annotator, CoreAnnotation<Boolean> {
 
     @Override
     public void annotate(Annotation annotation) {
-        if (stopwords != null && stopwords.size() > 0) {
-            List<CoreLabel> tokens = annotation.get(CoreAnnotations.TokensAnnotation.class);
+        final String listName = namedRules.isEmpty()
+                ? null
+                : annotation.get(StopWordsAnnotations.StopWordsListAnnotation.class);
+        final RuleChain chain = listName == null ? this.rules : namedRules(listName);
+        final StopPhraseAutomaton phrases = this.stopPhrases;
+        final AnnotateEvent event = AnnotateEvent.start();
+        final long start = metricsEnabled ? System.nanoTime() : 0;
+
+        List<CoreLabel> tokens = annotation.get(CoreAnnotations.TokensAnnotation.class);
+        if (chain.isEmpty() && phrases == null) {
+            // nothing is stopped, but the outputs promised by requirementsSatisfied() and the document are still recorded
+            final BitSet noStops = new BitSet();
+            if (maskOutput) {
+                annotation.set(StopWordsAnnotations.StopWordsMaskAnnotation.class, noStops);
+            }
+            if (filteredOutput) {
+                setNonStopTokens(annotation, tokens, noStops);
+            }
+            if (metricsEnabled) {
+                metrics.documentAnnotated(tokens.size(), System.nanoTime() - start);
+            }
+            event.finish(tokens.size(), 0);
+            return;
+        }
+        final boolean masked = maskOutput || filteredOutput || phrases != null;
+        final boolean adaptive = adaptiveOrdering != null && listName == null;
+        // the last counter is of the tokens stopped by the cache, which the adaptive ordering does not read
+        final int[] matches = adaptive || metricsEnabled ? new int[chain.size() + 2] : null;
+        final BitSet mask;
+        final int ruleStops;
+        int phraseStops = 0;
+        if (parallelThreshold > 0 && tokens.size() >= parallelThreshold && tokens instanceof RandomAccess) {
+            final long[] maskWords = masked ? new long[(tokens.size() + MASK_WORD_BITS - 1) / MASK_WORD_BITS] : null;
+            ruleStops = decideInParallel(chain, tokens, matches, maskWords);
+            mask = maskWords != null ? BitSet.valueOf(maskWords) : null;
+            if (phrases != null) {
+                phraseStops = stopPhrases(phrases, tokens, mask);
+            }
+        } else {
+            mask = masked ? new BitSet(tokens.size()) : null;
+            final RuleDecisions decisions = new RuleDecisions(chain, matches);
+            int phraseState = StopPhraseAutomaton.INITIAL_STATE;
+            int index = 0;
             for (CoreLabel token : tokens) {
-                token.set(StopWordsAnnotator.class,
-                        token.word().length() < minimumWordLength ||
-                                token.lemma().length() < minimumLemmaLength ||
-                                stopPosCategories.contains(token.tag()) ||
-                                checkWordAndOrLemma(token));
+                boolean stopped = decisions.decide(token);
+                if (phrases != null) {
+                    phraseState = phrases.step(phraseState, phrasesOnLemmas ? token.lemma() : token.word());
+                    final int phraseLength = phrases.matchLength(phraseState);
+                    if (phraseLength > 0) {
+                        phraseStops += (stopped ? 0 : 1) + stopPhrase(tokens, mask, index - 1, phraseLength - 1);
+                        stopped = true;
+                    }
+                }
+                if (labelsOutput) {
+                    token.set(StopWordsAnnotator.class, stopped);
+                }
+                if (mask != null && stopped) {
+                    mask.set(index);
+                }
+                index++;
+            }
+            decisions.recordCacheLookups();
+            ruleStops = decisions.stoppedCount();
+        }
+
+        if (maskOutput) {
+            annotation.set(StopWordsAnnotations.StopWordsMaskAnnotation.class, mask);
+        }
+        if (filteredOutput) {
+            setNonStopTokens(annotation, tokens, mask);
+        }
+        if (metricsEnabled) {
+            recordMetrics(chain, matches, phraseStops, tokens.size(), start);
+        }
+        if (adaptive) {
+            final RuleChain reordered = adaptiveOrdering.record(chain, matches);
+            if (reordered != chain) {
+                // the rules may have been swapped by a reload meanwhile, which should not be overwritten
+                RULES.compareAndSet(this, chain, reordered);
             }
         }
+        event.finish(tokens.size(), ruleStops + phraseStops);
     }
 
-    private boolean checkWordAndOrLemma(CoreLabel token) {
-            return stopwords.contains(token.lemma().toLowerCase()) || stopwords.contains(token.word().toLowerCase());
+    /**
+     * Decides the tokens of a long document by the rules, splitting it into the chunks decided in parallel.
+     * @param maskWords words of the mask of the stopped tokens to set, or null if the mask is not needed
+     * @return the number of the stopped tokens
+     */
+    private int decideInParallel(RuleChain chain, List<CoreLabel> tokens, int[] matches, long[] maskWords) {
+        final DecideChunksTask task = new DecideChunksTask(chain, tokens, maskWords, matches, 0, tokens.size());
+        // a document annotated by annotateAll is split within the same pool, instead of blocking its worker
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    /**
+     * Stops all the tokens of the phrases found in the already decided tokens.
+     * @return the number of the tokens stopped
+     */
+    private int stopPhrases(StopPhraseAutomaton phrases, List<CoreLabel> tokens, BitSet mask) {
+        int stopped = 0;
+        int phraseState = StopPhraseAutomaton.INITIAL_STATE;
+        int index = 0;
+        for (CoreLabel token : tokens) {
+            phraseState = phrases.step(phraseState, phrasesOnLemmas ? token.lemma() : token.word());
+            final int phraseLength = phrases.matchLength(phraseState);
+            if (phraseLength > 0) {
+                stopped += stopPhrase(tokens, mask, index, phraseLength);
+            }
+            index++;
+        }
+        return stopped;
+    }
+
+    /**
+     * Stops the tokens of a phrase ending with the token at the index, which have not been stopped yet.
+     * @return the number of the tokens stopped
+     */
+    private int stopPhrase(List<CoreLabel> tokens, BitSet mask, int last, int length) {
+        int stopped = 0;
+        for (int i = mask.previousClearBit(last); i > last - length; i = mask.previousClearBit(i - 1)) {
+            mask.set(i);
+            if (labelsOutput) {
+                tokens.get(i).set(StopWordsAnnotator.class, true);
+            }
+            stopped++;
+        }
+        return stopped;
+    }
+
+    private void recordMetrics(RuleChain chain, int[] matches, int phraseStops, int tokensCount, long start) {
+        for (int i = 0; i < chain.size(); i++) {
+            if (matches[i + 1] > 0) {
+                metrics.tokensStopped(metricsRule(chain.get(i).kind()), matches[i + 1]);
+            }
+        }
+        if (matches[chain.size() + 1] > 0) {
+            metrics.tokensStopped(StopWordsMetrics.Rule.CACHE, matches[chain.size() + 1]);
+        }
+        if (phraseStops > 0) {
+            metrics.tokensStopped(StopWordsMetrics.Rule.PHRASE, phraseStops);
+        }
+        metrics.documentAnnotated(tokensCount, System.nanoTime() - start);
+    }
+
+    private static StopWordsMetrics.Rule metricsRule(StopWordRule.Kind kind) {
+        switch (kind) {
+            case WORD_LENGTH:
+                return StopWordsMetrics.Rule.WORD_LENGTH;
+            case LEMMA_LENGTH:
+                return StopWordsMetrics.Rule.LEMMA_LENGTH;
+            case POS_CATEGORY:
+                return StopWordsMetrics.Rule.POS_CATEGORY;
+            case PATTERN:
+                return StopWordsMetrics.Rule.PATTERN;
+            default:
+                return StopWordsMetrics.Rule.LIST;
+        }
+    }
+
+    private RuleChain namedRules(String listName) {
+        final RuleChain chain = namedRules.get(listName);
+        if (chain == null) {
+            throw new IllegalArgumentException("Unknown stop words list: " + listName);
+        }
+        return chain;
+    }
+
+    private static void setNonStopTokens(Annotation annotation, List<CoreLabel> tokens, BitSet mask) {
+        final int tokensCount = tokens.size();
+        final List<CoreLabel> nonStopTokens = new ArrayList<>(tokensCount - mask.cardinality());
+        for (int i = mask.nextClearBit(0); i < tokensCount; i = mask.nextClearBit(i + 1)) {
+            nonStopTokens.add(tokens.get(i));
+        }
+        annotation.set(StopWordsAnnotations.NonStopTokensAnnotation.class, nonStopTokens);
+
+        final List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        if (sentences == null) {
+            return;
+        }
+        // the sentences follow each other, so their non stop tokens are consecutive ranges of the document's ones
+        int tokenIndex = 0;
+        int nonStopIndex = 0;
+        for (CoreMap sentence : sentences) {
+            final Integer begin = sentence.get(CoreAnnotations.TokenBeginAnnotation.class);
+            final Integer end = sentence.get(CoreAnnotations.TokenEndAnnotation.class);
+            if (begin == null || end == null || begin < tokenIndex) {
+                continue;
+            }
+            for (; tokenIndex < begin; tokenIndex++) {
+                nonStopIndex += mask.get(tokenIndex) ? 0 : 1;
+            }
+            final int sentenceNonStopBegin = nonStopIndex;
+            for (; tokenIndex < end; tokenIndex++) {
+                nonStopIndex += mask.get(tokenIndex) ? 0 : 1;
+            }
+            sentence.set(StopWordsAnnotations.NonStopTokensAnnotation.class,
+                    new ArrayList<>(nonStopTokens.subList(sentenceNonStopBegin, nonStopIndex)));
+        }
+    }
+
+    /**
+     * Returns the matcher checking the words without CoreNLP tokens, with the same list of stop words and patterns as
+     * the annotator (and the same word length). If the list is reloaded, the matcher returned before keeps using the
+     * previous list, the matcher should be obtained again to use the new one.
+     * @return the matcher of the words
+     */
+    public StopWordMatcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * Returns the statistics of the cache of the decisions (`stopwords.cache.size` property), counted over all the
+     * documents and the tokens decided by the annotator.
+     * @return the snapshot of the statistics, with zero counts if the decisions are not cached
+     */
+    public VerdictCacheStats cacheStats() {
+        return verdictCounters.snapshot();
+    }
+
+    /**
+     * Decides the tokens lazily, as they are read from the iterator, so the stream of tokens does not have to be held
+     * in memory: only the last tokens, which may still be stopped by a phrase, are kept. Every token returned has
+     * {@link StopWordsAnnotator} annotation set. The phrases are matched across all the tokens of the iterator, so
+     * an iterator per sentence should be used not to match them across the sentences.
+     * @param tokens tokens to decide
+     * @return iterator of the same tokens, with the decisions set
+     */
+    public Iterator<CoreLabel> annotateTokens(Iterator<CoreLabel> tokens) {
+        return new StopWordsTokenIterator(tokens, rules, stopPhrases, phrasesOnLemmas, true);
+    }
+
+    /**
+     * Filters out the stopped tokens lazily, as they are read from the iterator, the same way as
+     * {@link #annotateTokens(Iterator)}, but returns only the tokens which are not stopped, without setting the
+     * annotation.
+     * @param tokens tokens to filter
+     * @return iterator of the tokens which are not stopped
+     */
+    public Iterator<CoreLabel> nonStopTokens(Iterator<CoreLabel> tokens) {
+        return new StopWordsTokenIterator(tokens, rules, stopPhrases, phrasesOnLemmas, false);
+    }
+
+    /**
+     * Filters out the stopped tokens of the stream lazily, see {@link #nonStopTokens(Iterator)}. Closing the returned
+     * stream closes the source stream.
+     * @param tokens stream of tokens to filter
+     * @return sequential stream of the tokens which are not stopped
+     */
+    public Stream<CoreLabel> nonStopTokens(Stream<CoreLabel> tokens) {
+        final Spliterator<CoreLabel> filtered = Spliterators.spliteratorUnknownSize(
+                nonStopTokens(tokens.iterator()), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(filtered, false).onClose(tokens::close);
+    }
+
+    /**
+     * Annotates the documents in parallel, using the pool of `stopwords.threads` threads, or the common fork-join pool
+     * if the property is not set. The annotator's state is immutable (or, with the adaptive ordering, safely
+     * published), so the documents can be annotated concurrently by any number of threads.
+     * @param annotations documents to annotate
+     */
+    public void annotateAll(Collection<Annotation> annotations) {
+        final List<Annotation> documents = annotations instanceof List && annotations instanceof RandomAccess
+                ? (List<Annotation>) annotations
+                : new ArrayList<>(annotations);
+        if (documents.isEmpty()) {
+            return;
+        }
+        // a few batches per thread balance the load without creating a task per document
+        final int batchSize = Math.max(1, documents.size() / (pool.getParallelism() * 4));
+        pool.invoke(new AnnotateAllTask(documents, 0, documents.size(), batchSize));
+    }
+
+    private final class AnnotateAllTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Annotation> documents;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+
+        AnnotateAllTask(List<Annotation> documents, int from, int to, int batchSize) {
+            this.documents = documents;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    annotate(documents.get(i));
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new AnnotateAllTask(documents, from, middle, batchSize),
+                        new AnnotateAllTask(documents, middle, to, batchSize));
+            }
+        }
+    }
+
+    /**
+     * Decides the tokens of a document, or of its chunk, by the rules, counting the lookups of the cache and the
+     * matches of the rules for the adaptive ordering and the metrics.
+     */
+    private static final class RuleDecisions {
+        private final RuleChain chain;
+        private final VerdictCache verdicts;
+        private final int[] matches;
+        private int lookups;
+        private int stopped;
+        private int cacheHits;
+        private int cacheEvictions;
+
+        RuleDecisions(RuleChain chain, int[] matches) {
+            this.chain = chain;
+            this.verdicts = chain.verdicts();
+            this.matches = matches;
+        }
+
+        boolean decide(CoreLabel token) {
+            if (verdicts == null) {
+                return record(chain.firstMatch(token));
+            }
+            // the cheap rules are tested before the cache, which is looked up only for the tokens they do not stop
+            final int match = chain.firstUncachedMatch(token);
+            if (match >= 0) {
+                return record(match);
+            }
+            lookups++;
+            final long fingerprint = verdicts.fingerprint(token);
+            final int cached = verdicts.get(fingerprint);
+            if (cached != VerdictCache.MISS) {
+                cacheHits++;
+                if (cached == 1) {
+                    stopped++;
+                    if (matches != null) {
+                        matches[matches.length - 1]++;
+                    }
+                }
+                return cached == 1;
+            }
+            final int cachedMatch = chain.firstCachedMatch(token);
+            if (verdicts.put(fingerprint, cachedMatch >= 0)) {
+                cacheEvictions++;
+            }
+            return record(cachedMatch);
+        }
+
+        // only the tokens decided by the rules are recorded, since the order of the rules matters only for them
+        private boolean record(int match) {
+            if (matches != null) {
+                matches[match + 1]++;
+            }
+            if (match >= 0) {
+                stopped++;
+            }
+            return match >= 0;
+        }
+
+        int stoppedCount() {
+            return stopped;
+        }
+
+        void recordCacheLookups() {
+            if (verdicts != null) {
+                verdicts.counters().record(cacheHits, lookups - cacheHits, cacheEvictions);
+            }
+        }
+    }
+
+    /**
+     * Decides a range of the tokens of a long document, splitting it in halves down to the chunks of
+     * `stopwords.parallel.chunkSize` tokens. Every chunk sets its own words of the mask, and adds the matches of the
+     * rules it has counted to the document's ones when it is done. The task returns the number of the stopped tokens.
+     */
+    private final class DecideChunksTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final RuleChain chain;
+        private final List<CoreLabel> tokens;
+        private final long[] maskWords;
+        private final int[] matches;
+        private final int from;
+        private final int to;
+
+        DecideChunksTask(RuleChain chain, List<CoreLabel> tokens, long[] maskWords, int[] matches, int from, int to) {
+            this.chain = chain;
+            this.tokens = tokens;
+            this.maskWords = maskWords;
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > parallelChunkSize) {
+                final int chunks = (to - from + parallelChunkSize - 1) / parallelChunkSize;
+                final int middle = from + chunks / 2 * parallelChunkSize;
+                final DecideChunksTask first = new DecideChunksTask(chain, tokens, maskWords, matches, from, middle);
+                final DecideChunksTask second = new DecideChunksTask(chain, tokens, maskWords, matches, middle, to);
+                invokeAll(first, second);
+                return first.join() + second.join();
+            }
+
+            final RuleDecisions decisions = new RuleDecisions(chain, matches != null ? new int[matches.length] : null);
+            for (int i = from; i < to; i++) {
+                final CoreLabel token = tokens.get(i);
+                final boolean stopped = decisions.decide(token);
+                if (labelsOutput) {
+                    token.set(StopWordsAnnotator.class, stopped);
+                }
+                if (maskWords != null && stopped) {
+                    maskWords[i / MASK_WORD_BITS] |= 1L << i;
+                }
+            }
+            decisions.recordCacheLookups();
+            if (matches != null) {
+                synchronized (matches) {
+                    for (int i = 0; i < matches.length; i++) {
+                        matches[i] += decisions.matches[i];
+                    }
+                }
+            }
+            return decisions.stoppedCount();
+        }
+    }
+
+    /**
+     * Releases the resources of the annotator: shuts down the dedicated pool of `annotateAll`, stops watching the file
+     * of stop words, and releases the lists of stop words, which are dropped from the process-wide registry once no
+     * annotator uses them.
+     */
+    @Override
+    public void unmount() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+        if (watcher != null) {
+            watcher.close();
+        }
+        releaseStopWordsLists();
+    }
+
+    private synchronized void releaseStopWordsLists() {
+        if (stopWordsLease != null) {
+            stopWordsLease.release();
+            stopWordsLease = null;
+        }
+        namedListsLeases.forEach(StopWordListRegistry.Lease::release);
+        namedListsLeases.clear();
     }
 
     @Override
     public Set<Class<? extends CoreAnnotation>> requires() {
-        return Collections.unmodifiableSet(new ArraySet<>(Arrays.asList(
-                CoreAnnotations.TextAnnotation.class,
-                CoreAnnotations.TokensAnnotation.class,
-                CoreAnnotations.PartOfSpeechAnnotation.class,
-                CoreAnnotations.LemmaAnnotation.class
-        )));
+        final Set<Class<? extends CoreAnnotation>> required = new ArraySet<>();
+        required.add(CoreAnnotations.TextAnnotation.class);
+        required.add(CoreAnnotations.TokensAnnotation.class);
+        final List<RuleChain> chains = new ArrayList<>(namedRules.values());
+        chains.add(this.rules);
+        for (RuleChain chain : chains) {
+            for (int i = 0; i < chain.size(); i++) {
+                required.addAll(chain.get(i).reads());
+            }
+        }
+        if (stopPhrases != null && phrasesOnLemmas) {
+            required.add(CoreAnnotations.LemmaAnnotation.class);
+        }
+        return Collections.unmodifiableSet(required);
     }
 
     @Override
     public Set<Class<? extends CoreAnnotation>> requirementsSatisfied() {
-        return Collections.singleton(StopWordsAnnotator.class);
+        final Set<Class<? extends CoreAnnotation>> satisfied = new ArraySet<>();
+        if (labelsOutput) {
+            satisfied.add(StopWordsAnnotator.class);
+        }
+        if (maskOutput) {
+            satisfied.add(StopWordsAnnotations.StopWordsMaskAnnotation.class);
+        }
+        if (filteredOutput) {
+            satisfied.add(StopWordsAnnotations.NonStopTokensAnnotation.class);
+        }
+        return Collections.unmodifiableSet(satisfied);
     }
 
     @Override
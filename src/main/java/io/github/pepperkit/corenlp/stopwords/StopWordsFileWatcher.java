@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Polls the modification time and the size of a stop words file, and notifies when they change. All the watchers of
+ * the process share a single daemon thread, which also runs the notifications, so the new lists are built in the
+ * background. A change is only taken as seen once the notification handles it, so a file which could not be loaded
+ * (e.g. caught while it was being written) is loaded again on the next poll.
+ */
+final class StopWordsFileWatcher implements AutoCloseable {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stopwords-file-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+    private final BooleanSupplier onChange;
+    private final ScheduledFuture<?> polling;
+    private String lastSeen;
+
+    /**
+     * Starts watching the file.
+     * @param path file to watch
+     * @param intervalMillis interval between the checks of the file, in milliseconds
+     * @param onChange notified, when the file's modification time or size changes; returns false if the change could
+     *                 not be handled, and should be notified again
+     */
+    StopWordsFileWatcher(Path path, long intervalMillis, BooleanSupplier onChange) {
+        this.path = path;
+        this.onChange = onChange;
+        this.lastSeen = attributesOf(path);
+        this.polling = SCHEDULER.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        final String current = attributesOf(path);
+        if (current != null && !current.equals(lastSeen) && onChange.getAsBoolean()) {
+            lastSeen = current;
+        }
+    }
+
+    private static String attributesOf(Path path) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        } catch (IOException e) {
+            // the file may be missing while it is being replaced, it is checked again on the next poll
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        polling.cancel(false);
+    }
+}
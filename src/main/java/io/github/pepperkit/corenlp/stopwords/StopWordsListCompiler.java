@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a file with newline-separated stop words (the format of `stopwords.customListFilePath`) into the binary
+ * format, which is memory-mapped by the annotator when `stopwords.compiledListFilePath` property is set.
+ * Usage:
+ * <pre>
+ *     java -cp corenlp-stop-words-annotator.jar io.github.pepperkit.corenlp.stopwords.StopWordsListCompiler \
+ *         [--normalization=nfkc] stop-words.txt stop-words.swl
+ * </pre>
+ * The list used with `stopwords.normalization=nfkc` property should be compiled with `--normalization=nfkc` option, so
+ * its words are normalized the same way as the looked up words. The normalization is recorded in the compiled list, and
+ * the annotator rejects a list normalized otherwise than its `stopwords.normalization` property requires.
+ * <p>
+ * The compiled list is written into a temporary file next to the target, which then atomically replaces the target,
+ * so the annotators, which have mapped the previous list, keep reading it intact. A compiled list watched by an
+ * annotator (`stopwords.reload=watch`) should only be replaced this way, never rewritten in place.
+ */
+public final class StopWordsListCompiler {
+
+    private StopWordsListCompiler() {
+    }
+
+    /**
+     * Compiles the text stop words list into the binary format.
+     * @param args optional `--normalization=nfkc`, path of the text list, and path of the compiled list to write
+     * @throws IOException if the text list cannot be read, or the compiled list cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        final boolean nfkc = args.length == 3 && "--normalization=nfkc".equals(args[0]);
+        if (args.length != 2 && !nfkc) {
+            System.err.println("Usage: StopWordsListCompiler [--normalization=nfkc] <stop words list> "
+                    + "<compiled stop words list>");
+            System.exit(1);
+        }
+        compile(Paths.get(args[args.length - 2]), Paths.get(args[args.length - 1]), nfkc);
+    }
+
+    /**
+     * Compiles the text stop words list into the binary format.
+     * @param source path of the text list with newline-separated words
+     * @param target path of the compiled list to write
+     * @throws IOException if the text list cannot be read, or the compiled list cannot be written
+     */
+    public static void compile(Path source, Path target) throws IOException {
+        compile(source, target, false);
+    }
+
+    /**
+     * Compiles the text stop words list into the binary format, normalizing the words to the NFKC form if requested.
+     * The target is replaced atomically.
+     * @param source path of the text list with newline-separated words
+     * @param target path of the compiled list to write
+     * @param nfkc whether the words are normalized to the NFKC form
+     * @throws IOException if the text list cannot be read, or the compiled list cannot be written
+     */
+    public static void compile(Path source, Path target, boolean nfkc) throws IOException {
+        final List<String> words;
+        try (Stream<String> s = Files.lines(source)) {
+            words = s.map(word -> nfkc ? CaseFolding.normalize(word).toString() : word).collect(Collectors.toList());
+        }
+
+        final ByteBuffer compiled = CompiledStopWordIndex.compile(words, nfkc, false);
+        final Path directory = target.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (compiled.hasRemaining()) {
+                    channel.write(compiled);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
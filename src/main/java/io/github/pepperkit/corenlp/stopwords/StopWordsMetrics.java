@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Receiver of the metrics of {@link StopWordsAnnotator}, which adapts them to a metrics library (e.g. records them
+ * into the counters and the timers of a Micrometer registry), so the annotator does not depend on any of them.
+ * <p>
+ * The implementation is set with `stopwords.metrics.class` property (the class should have a public constructor
+ * without parameters), or passed to {@link StopWordsAnnotator#StopWordsAnnotator(java.util.Properties,
+ * StopWordsMetrics)}. It is called by all the threads annotating the documents, so it should be thread-safe. Without
+ * it, the annotator does not measure anything.
+ */
+public interface StopWordsMetrics {
+
+    /**
+     * Rules, by which the tokens are stopped.
+     */
+    enum Rule {
+        /** `stopwords.shorterThan` property. */
+        WORD_LENGTH,
+        /** `stopwords.withLemmasShorterThan` property. */
+        LEMMA_LENGTH,
+        /** `stopwords.withPosCategories` property. */
+        POS_CATEGORY,
+        /** `stopwords.patterns` property. */
+        PATTERN,
+        /** The list of stop words. */
+        LIST,
+        /** The list of stop phrases, which stopped the tokens not stopped by any other rule. */
+        PHRASE,
+        /** The cache of the decisions (`stopwords.cache.size` property), which does not keep the stopping rule. */
+        CACHE
+    }
+
+    /**
+     * Returns the implementation, which ignores all the metrics.
+     * @return the no-op implementation
+     */
+    static StopWordsMetrics noop() {
+        return NoopStopWordsMetrics.INSTANCE;
+    }
+
+    /**
+     * Records an annotated document; called once per document, after the stopped tokens of the document are recorded.
+     * @param tokensCount number of the tokens of the document
+     * @param durationNanos time spent annotating the document, in nanoseconds
+     */
+    void documentAnnotated(int tokensCount, long durationNanos);
+
+    /**
+     * Records the tokens of a document stopped by a rule.
+     * @param rule rule, which stopped the tokens
+     * @param count number of the tokens, always positive
+     */
+    void tokensStopped(Rule rule, int count);
+
+    /**
+     * Records a list of stop words loaded by the annotator, when it is created or when the list is reloaded. The lists
+     * already loaded by another annotator of the process are shared, and are not recorded again.
+     * @param listName name of the list, or null for the default list
+     * @param wordsCount number of the words of the list
+     * @param durationNanos time spent loading the list, in nanoseconds
+     */
+    void listLoaded(String listName, int wordsCount, long durationNanos);
+}
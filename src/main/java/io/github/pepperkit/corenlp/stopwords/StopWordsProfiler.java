@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+
+/**
+ * Derives a list of stop words from a corpus: the lemmas found in the most documents are the candidates to stop.
+ * <p>
+ * The documents are streamed through the profiler, and the memory it uses does not depend on the size of the corpus.
+ * The document frequencies of all the lemmas are counted approximately in a Count-Min sketch (with conservative
+ * updates), which may only overestimate them, and the most frequent lemmas are tracked in a fixed number of counters,
+ * evicting the least frequent of them as the Space-Saving algorithm does.
+ * <p>
+ * The lemmas are case-folded as by the stop words indexes; the tokens without a lemma are counted by their words. A
+ * lemma is counted once per document, however many times it occurs in it. The profiler can be shared between threads.
+ */
+public final class StopWordsProfiler {
+
+    private static final int DEFAULT_DEPTH = 4;
+    private static final int WIDTH_PER_COUNTER = 16;
+    // some virtual machines reserve a few header words in an array
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final long[] sketch;
+    private final int sketchMask;
+    private final int depth;
+
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int heapSize;
+
+    private long documentsCount;
+
+    /**
+     * Creates a new profiler, tracking the given number of the most frequent lemmas.
+     * @param capacity number of the most frequent lemmas tracked, which should be several times larger than the
+     *                 number of the stop words needed
+     * @throws IllegalArgumentException if the capacity is not positive, or too large for the sketch to be allocated
+     */
+    public StopWordsProfiler(int capacity) {
+        this(capacity, (int) Math.min(Integer.MAX_VALUE, Math.max(1024L, (long) capacity * WIDTH_PER_COUNTER)),
+                DEFAULT_DEPTH);
+    }
+
+    /**
+     * Creates a new profiler with the given sizes of its structures.
+     * @param capacity number of the most frequent lemmas tracked
+     * @param width number of the counters in every row of the sketch, rounded up to a power of two; the frequency of
+     *              a lemma is overestimated by at most about e/width of the number of documents
+     * @param depth number of the rows of the sketch; the bound above holds with the probability of 1 - e^-depth
+     * @throws IllegalArgumentException if any of the sizes is not positive, or if the sketch is too large to be
+     *                                  allocated
+     */
+    public StopWordsProfiler(int capacity, int width, int depth) {
+        if (capacity <= 0 || width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("The sizes of the profiler must be positive, got capacity " + capacity
+                    + ", width " + width + " and depth " + depth);
+        }
+        final long rowSize = width == 1 ? 1 : Long.highestOneBit(width - 1L) << 1;
+        if (rowSize * depth > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("The sketch of the profiler must have at most " + MAX_ARRAY_LENGTH
+                    + " counters, got " + rowSize + " counters in each of its " + depth + " rows");
+        }
+        this.sketch = new long[(int) (rowSize * depth)];
+        this.sketchMask = (int) rowSize - 1;
+        this.depth = depth;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Counts the lemmas of the annotated document.
+     * @param document document annotated with the tokens, and with their lemmas
+     */
+    public void addDocument(Annotation document) {
+        final List<CoreLabel> tokens = document.get(CoreAnnotations.TokensAnnotation.class);
+        final Set<String> lemmas = new HashSet<>();
+        for (CoreLabel token : tokens) {
+            final String lemma = token.lemma() != null ? token.lemma() : token.word();
+            if (lemma != null) {
+                lemmas.add(CaseFolding.fold(lemma));
+            }
+        }
+        record(lemmas);
+    }
+
+    /**
+     * Counts the lemmas of a document, given without CoreNLP tokens.
+     * @param lemmas lemmas (or words) of the document
+     */
+    public void addDocument(Collection<? extends CharSequence> lemmas) {
+        final Set<String> folded = new HashSet<>();
+        for (CharSequence lemma : lemmas) {
+            if (lemma != null) {
+                folded.add(CaseFolding.fold(lemma));
+            }
+        }
+        record(folded);
+    }
+
+    private synchronized void record(Set<String> lemmas) {
+        documentsCount++;
+        for (String lemma : lemmas) {
+            final long estimate = addToSketch(lemma);
+            addToHeavyHitters(lemma, estimate);
+        }
+    }
+
+    /**
+     * Increments the counters of the lemma, except the ones already larger than the estimate (the conservative update),
+     * which would only make the other lemmas sharing them more overestimated.
+     */
+    private long addToSketch(String lemma) {
+        final long hash = CaseFolding.hash64(lemma);
+        final long estimate = estimate(hash) + 1;
+        for (int row = 0; row < depth; row++) {
+            final int slot = slot(row, hash);
+            if (sketch[slot] < estimate) {
+                sketch[slot] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    private long estimate(String folded) {
+        return estimate(CaseFolding.hash64(folded));
+    }
+
+    private long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, sketch[slot(row, hash)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the counter of the row for the hash; the rows use the hashes {@code h1 + row * h2} derived from the two
+     * halves of the 64-bit hash, which are as good as the independent ones for the sketch.
+     */
+    private int slot(int row, long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        return row * (sketchMask + 1) + ((h1 + row * h2) & sketchMask);
+    }
+
+    /**
+     * Space-Saving eviction of the least frequent tracked lemma, with the frequencies estimated by the sketch: a tracked
+     * lemma takes its new estimate, an untracked one replaces the least frequent tracked lemma if it is more frequent.
+     * Its own counters would overestimate every replacing lemma by the frequency of the replaced one, which grows with
+     * the corpus, and could push out the lemmas of moderate frequencies.
+     */
+    private void addToHeavyHitters(String lemma, long estimate) {
+        Counter counter = counters.get(lemma);
+        if (counter != null) {
+            counter.frequency = estimate;
+        } else if (heapSize < heap.length) {
+            counter = new Counter(lemma, estimate, heapSize);
+            heap[heapSize++] = counter;
+            counters.put(lemma, counter);
+            siftUp(counter.position);
+            return;
+        } else if (estimate > heap[0].frequency) {
+            counter = heap[0];
+            counters.remove(counter.lemma);
+            counter.lemma = lemma;
+            counter.frequency = estimate;
+            counters.put(lemma, counter);
+        } else {
+            return;
+        }
+        siftDown(counter.position);
+    }
+
+    private void siftUp(int position) {
+        int i = position;
+        final Counter counter = heap[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heap[parent].frequency <= counter.frequency) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(counter, i);
+    }
+
+    private void siftDown(int position) {
+        int i = position;
+        final Counter counter = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1].frequency < heap[child].frequency) {
+                child++;
+            }
+            if (heap[child].frequency >= counter.frequency) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(counter, i);
+    }
+
+    private void place(Counter counter, int position) {
+        heap[position] = counter;
+        counter.position = position;
+    }
+
+    /**
+     * Returns the number of the documents counted.
+     * @return the number of the documents
+     */
+    public synchronized long documentsCount() {
+        return documentsCount;
+    }
+
+    /**
+     * Estimates the number of the documents containing the lemma. The estimate is never lower than the actual number.
+     * @param lemma lemma to look up
+     * @return the estimated document frequency of the lemma
+     */
+    public synchronized long documentFrequency(CharSequence lemma) {
+        return estimate(CaseFolding.fold(lemma));
+    }
+
+    /**
+     * Computes the inverse document frequency of the lemma, {@code ln(documents / (1 + document frequency))}. As the
+     * document frequency is overestimated, the IDF may only be underestimated.
+     * @param lemma lemma to look up
+     * @return the IDF of the lemma
+     */
+    public synchronized double inverseDocumentFrequency(CharSequence lemma) {
+        return idf(documentFrequency(lemma));
+    }
+
+    private double idf(long documentFrequency) {
+        return Math.log((double) documentsCount / (1 + documentFrequency));
+    }
+
+    /**
+     * Returns the most frequent lemmas, ranked by their document frequency, the most frequent first.
+     * @param limit maximum number of the lemmas to return
+     * @return the stop words
+     */
+    public synchronized List<String> mostFrequent(int limit) {
+        final List<String> words = new ArrayList<>();
+        for (Counter counter : ranked()) {
+            if (words.size() == limit) {
+                break;
+            }
+            words.add(counter.lemma);
+        }
+        return words;
+    }
+
+    /**
+     * Returns the tracked lemmas, whose inverse document frequency does not exceed the threshold, ranked by it, the
+     * lowest first. E.g. the threshold of {@code ln(2)} returns the lemmas found in about half of the documents or more.
+     * @param maximumIdf maximum inverse document frequency of the lemmas to return
+     * @return the stop words
+     */
+    public synchronized List<String> withIdfBelow(double maximumIdf) {
+        final List<String> words = new ArrayList<>();
+        for (Counter counter : ranked()) {
+            if (idf(counter.frequency) > maximumIdf) {
+                break;
+            }
+            words.add(counter.lemma);
+        }
+        return words;
+    }
+
+    private List<Counter> ranked() {
+        final Counter[] ranked = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(ranked, Comparator.comparingLong((Counter counter) -> counter.frequency).reversed()
+                .thenComparing(counter -> counter.lemma));
+        return Arrays.asList(ranked);
+    }
+
+    /**
+     * Writes the stop words into a file with newline-separated words, the format of `stopwords.customListFilePath`.
+     * @param words stop words to write, e.g. {@link #mostFrequent(int)}
+     * @param target path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Collection<String> words, Path target) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            for (String word : words) {
+                writer.write(word);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static final class Counter {
+        private String lemma;
+        private long frequency;
+        private int position;
+
+        private Counter(String lemma, long frequency, int position) {
+            this.lemma = lemma;
+            this.frequency = frequency;
+            this.position = position;
+        }
+    }
+}
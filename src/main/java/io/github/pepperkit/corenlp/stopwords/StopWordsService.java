@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.Annotation;
+
+/**
+ * Service annotating the documents submitted by the requests of a server, each document asynchronously, with a bounded
+ * number of them annotated at once.
+ * <p>
+ * On Java 21 and later every document is run on a virtual thread, on the older JVMs in a pool of as many platform
+ * threads as the documents annotated at once (the JAR of the annotator is a multi-release one). Either way, the
+ * submitters of the documents are held back once the limit is reached: {@link #submit(Annotation)} waits for one of
+ * the documents to be annotated, and {@link #trySubmit(Annotation, long, TimeUnit)} gives up after a timeout, so the
+ * server can reject the request instead of queueing it.
+ */
+public final class StopWordsService implements AutoCloseable {
+
+    private final StopWordsAnnotator annotator;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new service using the annotator, which is shared by all the documents.
+     * @param annotator annotator of the documents, which is not unmounted by the service
+     * @param maxConcurrency maximum number of the documents annotated at once
+     * @throws IllegalArgumentException if the maximum number of the documents is not positive
+     */
+    public StopWordsService(StopWordsAnnotator annotator, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Maximum number of the documents annotated at once should be positive, "
+                    + "got " + maxConcurrency);
+        }
+        this.annotator = annotator;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = ServiceExecutors.create(maxConcurrency);
+    }
+
+    /**
+     * Tells whether the documents are annotated on virtual threads, which are used on Java 21 and later.
+     * @return true if the documents are run on virtual threads, false if in a pool of platform threads
+     */
+    public boolean usesVirtualThreads() {
+        return ServiceExecutors.virtualThreads();
+    }
+
+    /**
+     * Submits the document, waiting while the maximum number of the documents are being annotated.
+     * @param document document to annotate
+     * @return the future completed with the annotated document, or with the exception thrown by the annotator
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws RejectedExecutionException if the service is closed
+     */
+    public CompletableFuture<Annotation> submit(Annotation document) throws InterruptedException {
+        checkOpen();
+        permits.acquire();
+        return run(document);
+    }
+
+    /**
+     * Submits the document, unless the maximum number of the documents are still being annotated after the timeout.
+     * @param document document to annotate
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return the future completed with the annotated document, or null if the document has not been submitted
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws RejectedExecutionException if the service is closed
+     */
+    public CompletableFuture<Annotation> trySubmit(Annotation document, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        checkOpen();
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return run(document);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new RejectedExecutionException("The stop words service is closed");
+        }
+    }
+
+    private CompletableFuture<Annotation> run(Annotation document) {
+        final CompletableFuture<Annotation> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                Throwable failure = null;
+                try {
+                    annotator.annotate(document);
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                // the permit is released first, so the callbacks of the result can submit the next document at once
+                permits.release();
+                if (failure == null) {
+                    result.complete(document);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Stops accepting the documents and waits until the submitted ones are annotated. The annotator is not unmounted.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
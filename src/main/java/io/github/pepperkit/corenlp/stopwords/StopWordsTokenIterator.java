@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * Iterator deciding the tokens of another iterator lazily, for the streams of tokens too large to be kept in memory.
+ * <p>
+ * A token is decided by the rules as soon as it is read, but it can still be stopped by a phrase, which ends at one of
+ * the following tokens. So the last tokens are kept in a ring buffer of the length of the longest phrase, and a token is
+ * returned only once the following tokens cannot complete a phrase covering it. Without phrases, the tokens are returned
+ * as they are read. Either way, the memory used does not depend on the number of tokens.
+ */
+final class StopWordsTokenIterator implements Iterator<CoreLabel> {
+
+    private final Iterator<CoreLabel> source;
+    private final RuleChain rules;
+    private final StopPhraseAutomaton phrases;
+    private final boolean phrasesOnLemmas;
+    private final boolean stoppedIncluded;
+
+    private final CoreLabel[] buffer;
+    private final boolean[] stopped;
+    private int head;
+    private int count;
+    private int phraseState = StopPhraseAutomaton.INITIAL_STATE;
+    private CoreLabel next;
+
+    /**
+     * Creates a new iterator.
+     * @param source tokens to decide
+     * @param rules rules stopping single tokens
+     * @param phrases phrases stopping all their tokens, or null
+     * @param phrasesOnLemmas whether the phrases are matched against the lemmas instead of the words
+     * @param stoppedIncluded if true, all the tokens are returned with {@link StopWordsAnnotator} annotation set,
+     *                        otherwise only the tokens which are not stopped are returned
+     */
+    StopWordsTokenIterator(Iterator<CoreLabel> source, RuleChain rules, StopPhraseAutomaton phrases,
+                           boolean phrasesOnLemmas, boolean stoppedIncluded) {
+        this.source = source;
+        this.rules = rules;
+        this.phrases = phrases;
+        this.phrasesOnLemmas = phrasesOnLemmas;
+        this.stoppedIncluded = stoppedIncluded;
+
+        final int capacity = phrases != null ? Math.max(1, phrases.maxPhraseLength()) : 1;
+        this.buffer = new CoreLabel[capacity];
+        this.stopped = new boolean[capacity];
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (count == buffer.length || (count > 0 && !source.hasNext())) {
+                // the oldest token has been followed by enough tokens to be decided
+                final CoreLabel token = buffer[head];
+                final boolean tokenStopped = stopped[head];
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                count--;
+                if (stoppedIncluded) {
+                    token.set(StopWordsAnnotator.class, tokenStopped);
+                    next = token;
+                } else if (!tokenStopped) {
+                    next = token;
+                }
+            } else if (source.hasNext()) {
+                read(source.next());
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void read(CoreLabel token) {
+        final int position = (head + count) % buffer.length;
+        buffer[position] = token;
+        stopped[position] = rules.test(token);
+        count++;
+
+        if (phrases != null) {
+            phraseState = phrases.step(phraseState, phrasesOnLemmas ? token.lemma() : token.word());
+            final int phraseLength = phrases.matchLength(phraseState);
+            for (int i = 0; i < phraseLength; i++) {
+                stopped[(position - i + buffer.length) % buffer.length] = true;
+            }
+        }
+    }
+
+    @Override
+    public CoreLabel next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final CoreLabel token = next;
+        next = null;
+        return token;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * Bounded cache of the decisions of a chain of rules, keyed by the parts of a token the rules read (the word, the
+ * lemma and the POS tag), so the frequent tokens, which make up most of a text, are decided by a single probe.
+ * Only the decisions of the costly rules (the patterns and the lists) are cached: the length and POS rules cost less
+ * than the fingerprint of a token, so they are tested before the cache is looked up, and their annotations are not a
+ * part of the key unless a cached rule reads them too.
+ * <p>
+ * A key is stored as its 64-bit fingerprint, with the decision and the referenced mark in its two lowest bits, so
+ * the cache holds no strings and does not allocate. The cache is set-associative: a key may only be stored in one of
+ * the 8 adjacent slots of its set, which are read from one or two cache lines. A full set evicts its entries with
+ * the CLOCK algorithm: a hit marks the entry as referenced, and the hand of the set skips (and unmarks) the referenced
+ * entries, so the entries used once are evicted before the frequently used ones. A token gets the decision of another
+ * one only if their fingerprints are equal, which happens with a probability below 2^-40 for a cache of up to
+ * a million decisions (and below 2^-30 for the largest one).
+ * <p>
+ * The cache is lock-free: the slots are read and written without locking, so the threads updating the same set
+ * concurrently may lose an insertion or a mark, which only costs a later miss.
+ */
+final class VerdictCache {
+
+    static final int MISS = -1;
+
+    private static final int WAYS_SHIFT = 3;
+    private static final int WAYS = 1 << WAYS_SHIFT;
+    private static final long REFERENCED = 1L;
+    private static final long STOPPED = 2L;
+    private static final long FINGERPRINT_MASK = ~3L;
+
+    private final AtomicLongArray slots;
+    private final byte[] hands;
+    private final int setsMask;
+    private final boolean readsWord;
+    private final boolean readsLemma;
+    private final boolean readsTag;
+    private final Counters counters;
+
+    /**
+     * Checks whether the decisions of the rule are cached, i.e. whether testing it costs more than a cache lookup.
+     * @param rule rule to check
+     * @return true if the rule is tested only on a cache miss
+     */
+    static boolean caches(StopWordRule rule) {
+        return rule.kind().cost() >= StopWordRule.Kind.PATTERN.cost();
+    }
+
+    /**
+     * Creates a new cache for a chain of the rules.
+     * @param capacity maximum number of the cached decisions, rounded up to a power of two
+     * @param rules cached rules of the chain, whose annotations make up the keys
+     * @param counters statistics to update
+     */
+    VerdictCache(int capacity, Collection<StopWordRule> rules, Counters counters) {
+        final int slotsCount = capacity <= WAYS ? WAYS : Integer.highestOneBit(capacity - 1) << 1;
+        final int sets = slotsCount >>> WAYS_SHIFT;
+        this.slots = new AtomicLongArray(slotsCount);
+        this.hands = new byte[sets];
+        this.setsMask = sets - 1;
+        boolean word = false;
+        boolean lemma = false;
+        boolean tag = false;
+        for (StopWordRule rule : rules) {
+            word |= rule.reads().contains(CoreAnnotations.TextAnnotation.class);
+            lemma |= rule.reads().contains(CoreAnnotations.LemmaAnnotation.class);
+            tag |= rule.reads().contains(CoreAnnotations.PartOfSpeechAnnotation.class);
+        }
+        this.readsWord = word;
+        this.readsLemma = lemma;
+        this.readsTag = tag;
+        this.counters = counters;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    Counters counters() {
+        return counters;
+    }
+
+    /**
+     * Computes the fingerprint of the token's key, which is looked up and cached.
+     * @param token token to fingerprint
+     * @return the fingerprint, which is never 0
+     */
+    long fingerprint(CoreLabel token) {
+        long h = 0;
+        if (readsWord) {
+            h = hash(h, token.word());
+        }
+        if (readsLemma) {
+            h = hash(h, token.lemma());
+        }
+        if (readsTag) {
+            h = hash(h, token.tag());
+        }
+        final long fingerprint = CaseFolding.mix64(h) & FINGERPRINT_MASK;
+        return fingerprint != 0 ? fingerprint : FINGERPRINT_MASK;
+    }
+
+    private static long hash(long seed, String part) {
+        if (part == null) {
+            return seed * 0x9e3779b97f4a7c15L + 1;
+        }
+        // the length separates the parts, so the keys differing only in where a part ends are not confused
+        final int length = part.length();
+        long h = seed * 0x9e3779b97f4a7c15L + length + 2;
+        // four chars are mixed by one multiplication, which makes the fingerprint of a word cheaper than its lookup
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            final long block = part.charAt(i) | (long) part.charAt(i + 1) << 16
+                    | (long) part.charAt(i + 2) << 32 | (long) part.charAt(i + 3) << 48;
+            h = Long.rotateLeft((h ^ block) * 0x9e3779b97f4a7c15L, 29);
+        }
+        for (; i < length; i++) {
+            h = (h ^ part.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private int set(long fingerprint) {
+        return (int) (fingerprint >>> 32) & setsMask;
+    }
+
+    /**
+     * Looks up the decision of the token.
+     * @param fingerprint fingerprint of the token
+     * @return 1 if the token is stopped, 0 if it is not, or {@link #MISS} if it is not cached
+     */
+    int get(long fingerprint) {
+        final int base = set(fingerprint) << WAYS_SHIFT;
+        for (int i = base; i < base + WAYS; i++) {
+            final long slot = slots.get(i);
+            if (slot == 0) {
+                break;
+            }
+            if ((slot & FINGERPRINT_MASK) == fingerprint) {
+                if ((slot & REFERENCED) == 0) {
+                    slots.lazySet(i, slot | REFERENCED);
+                }
+                return (slot & STOPPED) != 0 ? 1 : 0;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Caches the decision of the token, evicting another one if its set is full.
+     * @param fingerprint fingerprint of the token
+     * @param stopped whether the token is stopped
+     * @return true if another decision has been evicted
+     */
+    boolean put(long fingerprint, boolean stopped) {
+        final int set = set(fingerprint);
+        final int base = set << WAYS_SHIFT;
+        final long inserted = stopped ? fingerprint | STOPPED : fingerprint;
+        for (int i = base; i < base + WAYS; i++) {
+            if (slots.get(i) == 0) {
+                slots.lazySet(i, inserted);
+                return false;
+            }
+        }
+
+        // every entry is unmarked in the first sweep at the latest, so the second one finds the entry to evict
+        final int hand = hands[set];
+        for (int step = 0; step < 2 * WAYS; step++) {
+            final int way = (hand + step) & (WAYS - 1);
+            final long slot = slots.get(base + way);
+            if ((slot & REFERENCED) == 0) {
+                slots.lazySet(base + way, inserted);
+                hands[set] = (byte) ((way + 1) & (WAYS - 1));
+                return true;
+            }
+            slots.lazySet(base + way, slot & ~REFERENCED);
+        }
+        return false;
+    }
+
+    /**
+     * Statistics of the caches of an annotator, which outlive the caches replaced when a list is reloaded.
+     */
+    static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        /**
+         * Records the lookups of a document at once, not to update the shared counters for every token.
+         * @param hitsCount number of the hits
+         * @param missesCount number of the misses
+         * @param evictionsCount number of the evictions
+         */
+        void record(int hitsCount, int missesCount, int evictionsCount) {
+            if (hitsCount > 0) {
+                hits.add(hitsCount);
+            }
+            if (missesCount > 0) {
+                misses.add(missesCount);
+            }
+            if (evictionsCount > 0) {
+                evictions.add(evictionsCount);
+            }
+        }
+
+        VerdictCacheStats snapshot() {
+            return new VerdictCacheStats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+}
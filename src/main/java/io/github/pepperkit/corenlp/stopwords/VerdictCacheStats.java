@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+/**
+ * Snapshot of the statistics of the verdict cache of an annotator (`stopwords.cache.size` property), counted since
+ * the annotator was created.
+ */
+public final class VerdictCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    VerdictCacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * Returns the number of the tokens decided by the cache.
+     * @return the number of the hits
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of the tokens decided by the rules, as their decisions were not cached.
+     * @return the number of the misses
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of the decisions evicted from the cache to make room for the other ones.
+     * @return the number of the evictions
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the share of the tokens decided by the cache.
+     * @return the ratio of the hits to all the lookups, or 0 if there were no lookups
+     */
+    public double hitRatio() {
+        final long lookups = hitCount + missCount;
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "VerdictCacheStats{hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+                + ", hitRatio=" + hitRatio() + "}";
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of annotating a document, the version for Java 11 and later. While the event is disabled, it
+ * is neither timed nor committed, and the JIT eliminates its allocation.
+ */
+@Name("io.github.pepperkit.corenlp.stopwords.Annotate")
+@Label("Stop Words Annotate")
+@Category({"CoreNLP", "Stop Words"})
+@Description("Annotation of a document by the stop words annotator")
+@StackTrace(false)
+final class AnnotateEvent extends Event {
+
+    @Label("Tokens")
+    private int tokensCount;
+
+    @Label("Stopped Tokens")
+    private int stoppedCount;
+
+    private AnnotateEvent() {
+    }
+
+    /**
+     * Starts the event, before the document is annotated.
+     * @return the started event
+     */
+    static AnnotateEvent start() {
+        final AnnotateEvent event = new AnnotateEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and records it, if the recording is enabled.
+     * @param tokensCount number of the tokens of the document
+     * @param stoppedCount number of the stopped tokens
+     */
+    void finish(int tokensCount, int stoppedCount) {
+        end();
+        if (shouldCommit()) {
+            this.tokensCount = tokensCount;
+            this.stoppedCount = stoppedCount;
+            commit();
+        }
+    }
+}
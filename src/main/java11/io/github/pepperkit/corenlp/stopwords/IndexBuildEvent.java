@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of building the index of a list of stop words, the version for Java 11 and later.
+ */
+@Name("io.github.pepperkit.corenlp.stopwords.IndexBuild")
+@Label("Stop Words Index Build")
+@Category({"CoreNLP", "Stop Words"})
+@Description("Building of the index of a list of stop words")
+final class IndexBuildEvent extends Event {
+
+    @Label("Index")
+    private String index;
+
+    @Label("Entries")
+    private int entriesCount;
+
+    private IndexBuildEvent() {
+    }
+
+    /**
+     * Starts the event, before the index is built.
+     * @return the started event
+     */
+    static IndexBuildEvent start() {
+        final IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and records it, if the recording is enabled.
+     * @param index kind of the index (`stopwords.index` property)
+     * @param entriesCount number of the words of the index
+     */
+    void finish(String index, int entriesCount) {
+        end();
+        if (shouldCommit()) {
+            this.index = index;
+            this.entriesCount = entriesCount;
+            commit();
+        }
+    }
+}
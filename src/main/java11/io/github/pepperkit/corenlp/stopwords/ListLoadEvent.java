@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of loading a list of stop words, the version for Java 11 and later. Only the lists actually
+ * loaded are recorded, not the ones shared by the annotators of the process.
+ */
+@Name("io.github.pepperkit.corenlp.stopwords.ListLoad")
+@Label("Stop Words List Load")
+@Category({"CoreNLP", "Stop Words"})
+@Description("Loading of a list of stop words, including the building of its index")
+final class ListLoadEvent extends Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Entries")
+    private int entriesCount;
+
+    @Label("Source Size")
+    @DataAmount
+    private long bytes;
+
+    private ListLoadEvent() {
+    }
+
+    /**
+     * Starts the event, before the list is loaded.
+     * @return the started event
+     */
+    static ListLoadEvent start() {
+        final ListLoadEvent event = new ListLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and records it, if the recording is enabled.
+     * @param source source of the list, e.g. the path of its file
+     * @param entriesCount number of the words of the list
+     * @param bytes size of the source in bytes, or -1 if it is not known
+     */
+    void finish(String source, int entriesCount, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.entriesCount = entriesCount;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executor of {@link StopWordsService}. This is the version for Java 21 and later, which runs every
+ * document on a new virtual thread; the number of the documents run at once is bounded by the service itself.
+ */
+final class ServiceExecutors {
+
+    private ServiceExecutors() {
+    }
+
+    /**
+     * Creates the executor running the documents of the service.
+     * @param maxConcurrency maximum number of the documents annotated at once, which the executor does not need
+     * @return the executor starting a virtual thread per document
+     */
+    static ExecutorService create(int maxConcurrency) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("stopwords-service-", 1).factory());
+    }
+
+    /**
+     * Tells whether the documents are run on virtual threads.
+     * @return true
+     */
+    static boolean virtualThreads() {
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaseFoldingTest {
+    @Test
+    public void asciiLettersAreLowerCased() {
+        assertThat(CaseFolding.fold("Stop WORDS, 42!")).isEqualTo("stop words, 42!");
+    }
+
+    @Test
+    public void caseVariantsAreFoldedToOneForm() {
+        assertThat(CaseFolding.fold("ΟΔΟΣ")).isEqualTo(CaseFolding.fold("οδος"));
+        assertThat(CaseFolding.fold("οδός")).isEqualTo("οδόσ");
+        assertThat(CaseFolding.fold("ſtop")).isEqualTo("stop");
+        assertThat(CaseFolding.fold("ÜBER")).isEqualTo("über");
+        assertThat(CaseFolding.fold("Straße")).isEqualTo("straße");
+    }
+
+    @Test
+    public void turkishDottedAndDotlessIAreKept() {
+        assertThat(CaseFolding.fold("İSTANBUL")).isEqualTo("İstanbul");
+        assertThat(CaseFolding.fold("ılık")).isEqualTo("ılık");
+    }
+
+    @Test
+    public void surrogatePairsAreFoldedAsCodePoints() {
+        // DESERET CAPITAL LETTER LONG I and DESERET SMALL LETTER LONG I
+        final String capital = new String(Character.toChars(0x10400));
+        final String small = new String(Character.toChars(0x10428));
+
+        assertThat(CaseFolding.fold(capital + "A")).isEqualTo(small + "a");
+        assertThat(CaseFolding.hash(capital)).isEqualTo(CaseFolding.hash(small));
+        assertThat(CaseFolding.equalsFolded(small, capital)).isTrue();
+        assertThat(CaseFolding.fold("\uD801x")).isEqualTo("\uD801x");
+    }
+
+    @Test
+    public void foldingIsIdempotent() {
+        for (char c = 0; c < Character.MIN_SURROGATE; c++) {
+            assertThat(CaseFolding.fold(CaseFolding.fold(c))).as("character %04x", (int) c)
+                    .isEqualTo(CaseFolding.fold(c));
+        }
+    }
+
+    @Test
+    public void arrayRangesAreHashedAsWords() {
+        final char[] chars = "the WORDS list".toCharArray();
+
+        assertThat(CaseFolding.hash(chars, 4, 5)).isEqualTo(CaseFolding.hash("words"));
+        assertThat(CaseFolding.hash64(chars, 4, 5)).isEqualTo(CaseFolding.hash64("Words"));
+        assertThat(CaseFolding.equalsFolded("words", chars, 4, 5)).isTrue();
+    }
+
+    @Test
+    public void wordsAreNormalizedToNfkc() {
+        assertThat(CaseFolding.normalize("ﬁle").toString()).isEqualTo("file");
+        assertThat(CaseFolding.normalize("ｔｈｅ").toString()).isEqualTo("the");
+        final String ascii = "the";
+        assertThat(CaseFolding.normalize(ascii)).isSameAs(ascii);
+    }
+}
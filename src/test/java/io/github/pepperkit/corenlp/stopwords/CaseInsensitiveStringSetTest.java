@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaseInsensitiveStringSetTest {
+    @Test
+    public void elementsAreStoredInLowerCase() {
+        CaseInsensitiveStringSet set = new CaseInsensitiveStringSet(Arrays.asList("Stop", "WORDS", "list"));
+
+        assertThat(set).containsExactlyInAnyOrder("stop", "words", "list");
+    }
+
+    @Test
+    public void duplicatesDifferingInCaseAreStoredOnce() {
+        CaseInsensitiveStringSet set = new CaseInsensitiveStringSet(Arrays.asList("word", "Word", "WORD"));
+
+        assertThat(set).containsExactly("word");
+    }
+
+    @Test
+    public void wordIsFoundRegardlessOfItsCase() {
+        CaseInsensitiveStringSet set = new CaseInsensitiveStringSet(Arrays.asList("stop", "words"));
+
+        assertThat(set.containsIgnoreCase("STOP")).isTrue();
+        assertThat(set.containsIgnoreCase("Words")).isTrue();
+        assertThat(set.containsIgnoreCase(new StringBuilder("sToP"))).isTrue();
+    }
+
+    @Test
+    public void wordIsNotFoundIfAbsent() {
+        CaseInsensitiveStringSet set = new CaseInsensitiveStringSet(Arrays.asList("stop", "words"));
+
+        assertThat(set.containsIgnoreCase("stops")).isFalse();
+        assertThat(set.containsIgnoreCase("")).isFalse();
+        assertThat(set.contains(42)).isFalse();
+    }
+
+    @Test
+    public void emptySetContainsNothing() {
+        CaseInsensitiveStringSet set = new CaseInsensitiveStringSet(Collections.emptyList());
+
+        assertThat(set).isEmpty();
+        assertThat(set.containsIgnoreCase("word")).isFalse();
+    }
+}
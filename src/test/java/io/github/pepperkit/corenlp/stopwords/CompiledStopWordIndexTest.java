@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledStopWordIndexTest {
+    @Test
+    public void wordIsFoundRegardlessOfItsCase() throws IOException {
+        CompiledStopWordIndex index = CompiledStopWordIndex.wrap(
+                CompiledStopWordIndex.compile(Arrays.asList("Stop", "words")), false);
+
+        assertThat(index.containsIgnoreCase("stop")).isTrue();
+        assertThat(index.containsIgnoreCase("WORDS")).isTrue();
+        assertThat(index.containsIgnoreCase("stops")).isFalse();
+        assertThat(index.containsIgnoreCase("sto")).isFalse();
+    }
+
+    @Test
+    public void nonAsciiWordsAreFound() throws IOException {
+        CompiledStopWordIndex index = CompiledStopWordIndex.wrap(
+                CompiledStopWordIndex.compile(Arrays.asList("Straße", "ÉCOLE", "дом", "😀smile")), false);
+
+        assertThat(index.containsIgnoreCase("STRAßE")).isTrue();
+        assertThat(index.containsIgnoreCase("école")).isTrue();
+        assertThat(index.containsIgnoreCase("ДОМ")).isTrue();
+        assertThat(index.containsIgnoreCase("😀SMILE")).isTrue();
+        assertThat(index.containsIgnoreCase("😁smile")).isFalse();
+    }
+
+    @Test
+    public void duplicatesAreCountedOnce() throws IOException {
+        CompiledStopWordIndex index = CompiledStopWordIndex.wrap(
+                CompiledStopWordIndex.compile(Arrays.asList("word", "Word", "other")), false);
+
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void largeListIsLookedUpFromMappedFile(@TempDir Path tempDir) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            words.add("word" + i);
+        }
+        Path source = tempDir.resolve("words.txt");
+        Path compiled = tempDir.resolve("words.swl");
+        Files.write(source, words, StandardCharsets.UTF_8);
+        StopWordsListCompiler.compile(source, compiled);
+
+        CompiledStopWordIndex index = CompiledStopWordIndex.map(compiled, false);
+
+        assertThat(index.size()).isEqualTo(10_000);
+        for (String word : words) {
+            assertThat(index.containsIgnoreCase(word.toUpperCase())).isTrue();
+        }
+        assertThat(index.containsIgnoreCase("word10000")).isFalse();
+    }
+
+    @Test
+    public void mappedListIsIntactWhenFileIsCompiledAgain(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("words.txt");
+        Path compiled = tempDir.resolve("words.swl");
+        Files.write(source, Arrays.asList("first", "list"), StandardCharsets.UTF_8);
+        StopWordsListCompiler.compile(source, compiled);
+        CompiledStopWordIndex previous = CompiledStopWordIndex.map(compiled, false);
+
+        Files.write(source, Arrays.asList("second"), StandardCharsets.UTF_8);
+        StopWordsListCompiler.compile(source, compiled);
+
+        assertThat(previous.containsIgnoreCase("first")).isTrue();
+        assertThat(previous.containsIgnoreCase("second")).isFalse();
+        assertThat(CompiledStopWordIndex.map(compiled, false).containsIgnoreCase("second")).isTrue();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactlyInAnyOrder(source, compiled);
+        }
+    }
+
+    @Test
+    public void listIsCompiledOutsideOfHeap() throws IOException {
+        CompiledStopWordIndex index = CompiledStopWordIndex.wrap(
+                CompiledStopWordIndex.compile(Arrays.asList("Stop", "words", "ÉCOLE"), false, true), false);
+
+        assertThat(index.offHeapBytes()).isPositive();
+        assertThat(index.containsIgnoreCase("STOP")).isTrue();
+        assertThat(index.containsIgnoreCase("école")).isTrue();
+        assertThat(index.containsIgnoreCase("other")).isFalse();
+        assertThat(CompiledStopWordIndex.wrap(CompiledStopWordIndex.compile(Arrays.asList("word")), false)
+                .offHeapBytes())
+                .isZero();
+    }
+
+    @Test
+    public void fileIsStreamedOutsideOfHeap(@TempDir Path tempDir) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            words.add("Word" + i);
+        }
+        words.add("word0");
+        Path source = tempDir.resolve("words.txt");
+        Files.write(source, words, StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = CompiledStopWordIndex.compileDirect(source, false);
+        CompiledStopWordIndex index = CompiledStopWordIndex.wrap(buffer, false);
+
+        assertThat(buffer.isDirect()).isTrue();
+        assertThat(index.size()).isEqualTo(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(index.containsIgnoreCase("WORD" + i)).isTrue();
+        }
+        assertThat(index.containsIgnoreCase("word10000")).isFalse();
+    }
+
+    @Test
+    public void listNormalizedOtherwiseIsRejected(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("words.txt");
+        Path compiled = tempDir.resolve("words.swl");
+        Files.write(source, Arrays.asList("ﬁle", "word"), StandardCharsets.UTF_8);
+        StopWordsListCompiler.compile(source, compiled, true);
+
+        assertThat(CompiledStopWordIndex.map(compiled, true).containsIgnoreCase("file")).isTrue();
+        assertThatThrownBy(() -> CompiledStopWordIndex.map(compiled, false))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("compiled again");
+        assertThatThrownBy(() -> CompiledStopWordIndex.wrap(CompiledStopWordIndex.compile(Arrays.asList("word")), true))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("compiled again");
+    }
+
+    @Test
+    public void wordsLongerOnceFoldedAreCompiled(@TempDir Path tempDir) throws IOException {
+        // U+023A takes 2 bytes in UTF-8, its folded form U+2C65 takes 3
+        Path source = tempDir.resolve("words.txt");
+        Path compiled = tempDir.resolve("words.swl");
+        Files.write(source, Arrays.asList("\u023A", "\u023Abc", "word"), StandardCharsets.UTF_8);
+        StopWordsListCompiler.compile(source, compiled);
+
+        CompiledStopWordIndex index = CompiledStopWordIndex.map(compiled, false);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.containsIgnoreCase("\u2C65")).isTrue();
+        assertThat(index.containsIgnoreCase("\u2C65BC")).isTrue();
+        assertThat(index.containsIgnoreCase("WORD")).isTrue();
+        assertThat(CompiledStopWordIndex.wrap(CompiledStopWordIndex.compile(Arrays.asList("\u023Abc"), false, true),
+                false).containsIgnoreCase("\u023ABC")).isTrue();
+    }
+
+    @Test
+    public void fileWithWordsLongerOnceFoldedIsStreamedOutsideOfHeap(@TempDir Path tempDir) throws IOException {
+        Path source = tempDir.resolve("words.txt");
+        Files.write(source, Arrays.asList("\u023A", "\u023Abc", "\uFB01le"), StandardCharsets.UTF_8);
+
+        CompiledStopWordIndex index = CompiledStopWordIndex.wrap(CompiledStopWordIndex.compileDirect(source, true), true);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.containsIgnoreCase("\u2C65")).isTrue();
+        assertThat(index.containsIgnoreCase("\u2C65BC")).isTrue();
+        assertThat(index.containsIgnoreCase("FILE")).isTrue();
+    }
+
+    @Test
+    public void truncatedListIsRejected() throws IOException {
+        ByteBuffer buffer = CompiledStopWordIndex.compile(Arrays.asList("stop", "words"));
+
+        buffer.limit(buffer.limit() - 1);
+        assertThatThrownBy(() -> CompiledStopWordIndex.wrap(buffer, false))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+        buffer.limit(12);
+        assertThatThrownBy(() -> CompiledStopWordIndex.wrap(buffer, false))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+    }
+
+    @Test
+    public void bufferWithoutCompiledListIsRejected() {
+        assertThatThrownBy(() -> CompiledStopWordIndex.wrap(ByteBuffer.allocate(32), false))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerfectHashStopWordIndexTest {
+    private static final int WORDS_COUNT = 200_000;
+
+    @Test
+    public void everyWordIsFoundRegardlessOfItsCase() {
+        List<String> words = words(WORDS_COUNT, "word");
+        PerfectHashStopWordIndex index = new PerfectHashStopWordIndex(words);
+
+        assertThat(index.size()).isEqualTo(WORDS_COUNT);
+        for (String word : words) {
+            assertThat(index.containsIgnoreCase(word.toUpperCase())).isTrue();
+        }
+    }
+
+    @Test
+    public void absentWordsAreRarelyFound() {
+        PerfectHashStopWordIndex index = new PerfectHashStopWordIndex(words(WORDS_COUNT, "word"));
+
+        int falsePositives = 0;
+        for (String absent : words(WORDS_COUNT, "absent")) {
+            if (index.containsIgnoreCase(absent)) {
+                falsePositives++;
+            }
+        }
+        // the expected rate is 1/65536 per lookup
+        assertThat(falsePositives).isLessThan(20);
+    }
+
+    @Test
+    public void indexTakesLessThanFourBytesPerWord() {
+        PerfectHashStopWordIndex index = new PerfectHashStopWordIndex(words(WORDS_COUNT, "word"));
+
+        assertThat((double) index.sizeInBytes() / WORDS_COUNT).isLessThan(4.0);
+    }
+
+    @Test
+    public void duplicatesAreCountedOnce() {
+        PerfectHashStopWordIndex index = new PerfectHashStopWordIndex(Arrays.asList("word", "Word", "other"));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.containsIgnoreCase("WORD")).isTrue();
+        assertThat(index.containsIgnoreCase("other")).isTrue();
+    }
+
+    @Test
+    public void emptyIndexContainsNothing() {
+        PerfectHashStopWordIndex index = new PerfectHashStopWordIndex(Collections.emptyList());
+
+        assertThat(index.isEmpty()).isTrue();
+        assertThat(index.containsIgnoreCase("word")).isFalse();
+    }
+
+    private static List<String> words(int count, String prefix) {
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add(prefix + i);
+        }
+        return words;
+    }
+}
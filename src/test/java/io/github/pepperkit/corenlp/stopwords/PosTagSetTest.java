@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PosTagSetTest {
+    @Test
+    public void tagsOfKnownTagsetsHaveDistinctIds() {
+        assertThat(Arrays.asList("DT", "PRP$", "-LRB-", "DET", "PUNCT", "DEC", "PU", "APPRART", "$,", "NN"))
+                .extracting(PosTagSet::id)
+                .doesNotContain(-1)
+                .doesNotHaveDuplicates();
+        assertThat(PosTagSet.id("NONE")).isEqualTo(-1);
+    }
+
+    @Test
+    public void tagsAreFoundRegardlessOfTheirTagset() {
+        PosTagSet set = new PosTagSet(Arrays.asList("DT", "IN", "DET", "ADP", "DEG", "ART", "$,"));
+
+        assertThat(set.contains("DT")).isTrue();
+        assertThat(set.contains(new String("IN"))).isTrue();
+        assertThat(set.contains("DET")).isTrue();
+        assertThat(set.contains("DEG")).isTrue();
+        assertThat(set.contains("ART")).isTrue();
+        assertThat(set.contains("$,")).isTrue();
+        assertThat(set.contains("NN")).isFalse();
+        assertThat(set.contains("NOUN")).isFalse();
+        assertThat(set.contains("$.")).isFalse();
+        assertThat(set.contains(null)).isFalse();
+    }
+
+    @Test
+    public void unknownTagsAreFoundAsWell() {
+        PosTagSet set = new PosTagSet(Arrays.asList("NONE", "DT"));
+
+        assertThat(set.contains("NONE")).isTrue();
+        assertThat(set.contains("DT")).isTrue();
+        assertThat(set.contains("OTHER")).isFalse();
+        assertThat(new PosTagSet(Collections.emptySet()).contains("DT")).isFalse();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleChainTest {
+    private final StopWordRule listRule =
+            StopWordRule.wordOrLemmaIn(new CaseInsensitiveStringSet(Collections.singletonList("the")));
+    private final StopWordRule posRule = StopWordRule.posCategoryIn(Collections.singleton("DT"));
+    private final StopWordRule lengthRule = StopWordRule.wordShorterThan(3);
+
+    @Test
+    public void rulesAreOrderedCheapestFirst() {
+        RuleChain chain = RuleChain.cheapestFirst(Arrays.asList(listRule, posRule, lengthRule));
+
+        assertThat(kinds(chain)).containsExactly(
+                StopWordRule.Kind.WORD_LENGTH, StopWordRule.Kind.POS_CATEGORY, StopWordRule.Kind.LIST);
+    }
+
+    @Test
+    public void firstMatchReturnsPositionOfMatchedRule() {
+        RuleChain chain = RuleChain.cheapestFirst(Arrays.asList(listRule, posRule, lengthRule));
+
+        assertThat(chain.firstMatch(token("The", "the", "NN"))).isEqualTo(2);
+        assertThat(chain.firstMatch(token("a", "a", "DT"))).isZero();
+        assertThat(chain.firstMatch(token("those", "those", "DT"))).isEqualTo(1);
+        assertThat(chain.firstMatch(token("word", "word", "NN"))).isEqualTo(-1);
+    }
+
+    @Test
+    public void adaptiveOrderingMovesTheMostSelectiveRuleFirst() {
+        RuleChain chain = RuleChain.cheapestFirst(Arrays.asList(listRule, posRule, lengthRule));
+        AdaptiveRuleOrdering ordering = new AdaptiveRuleOrdering(100);
+
+        // the length rule never matches, the POS rule matches rarely, the list rule stops every other token
+        RuleChain reordered = ordering.record(chain, new int[] {50, 0, 1, 49});
+
+        assertThat(kinds(reordered)).containsExactly(
+                StopWordRule.Kind.LIST, StopWordRule.Kind.POS_CATEGORY, StopWordRule.Kind.WORD_LENGTH);
+    }
+
+    @Test
+    public void adaptiveOrderingKeepsTheChainUntilWindowIsComplete() {
+        RuleChain chain = RuleChain.cheapestFirst(Arrays.asList(listRule, posRule, lengthRule));
+        AdaptiveRuleOrdering ordering = new AdaptiveRuleOrdering(1000);
+
+        assertThat(ordering.record(chain, new int[] {50, 0, 1, 49})).isSameAs(chain);
+    }
+
+    private static StopWordRule.Kind[] kinds(RuleChain chain) {
+        StopWordRule.Kind[] kinds = new StopWordRule.Kind[chain.size()];
+        for (int i = 0; i < chain.size(); i++) {
+            kinds[i] = chain.get(i).kind();
+        }
+        return kinds;
+    }
+
+    private static CoreLabel token(String word, String lemma, String tag) {
+        CoreLabel token = new CoreLabel();
+        token.setWord(word);
+        token.setLemma(lemma);
+        token.setTag(tag);
+        return token;
+    }
+}
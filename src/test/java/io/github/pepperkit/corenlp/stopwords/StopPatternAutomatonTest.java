@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StopPatternAutomatonTest {
+    private static final List<String> WORDS = Arrays.asList("", "the", "The", "42", "4.2", "3rd", "...", "--", "!?",
+            "#hashtag", "@user", "a#b", "https://example.com", "http", "www.example.com", "über", "«", "naïve",
+            "snake_case", "x", "aaab", "abab", "ba", "Zürich", "日本", "١٢٣", "a", "b", "xb", "ax",
+            "a4", "y1", "1z", "$");
+
+    @Test
+    public void patternsMatchLikeRegularExpressionsFind() {
+        for (String pattern : Arrays.asList("^[#@]", "^\\p{P}+$", "^\\d+$", "^[\\d\\p{Punct}]+$", "https?://",
+                "^www\\.", "th", "^(ab)+$", "a*b", "^[^a-z]*$", "^\\w+$", "\\s", "^\\P{L}+$", "^\\p{Lu}",
+                "^.$", "(a|b)b?a$", "^\\p{N}+$", "[.?!]$", "^a|b", "a|b$", "^a|b$", "^\\d+$|^[#@]",
+                "x|^y|z$", "\\$|^$")) {
+            StopPatternAutomaton automaton = new StopPatternAutomaton(Collections.singletonList(pattern));
+            Pattern expected = Pattern.compile(pattern);
+
+            for (String word : WORDS) {
+                assertThat(automaton.matches(word))
+                        .as("pattern %s, word %s", pattern, word)
+                        .isEqualTo(expected.matcher(word).find());
+            }
+        }
+    }
+
+    @Test
+    public void wordMatchingAnyOfPatternsIsMatched() {
+        List<String> patterns = Arrays.asList("^[#@]", "^\\p{P}+$", "^\\d+$", "https?://");
+        StopPatternAutomaton automaton = new StopPatternAutomaton(patterns);
+
+        for (String word : WORDS) {
+            assertThat(automaton.matches(word))
+                    .as("word %s", word)
+                    .isEqualTo(patterns.stream().anyMatch(p -> Pattern.compile(p).matcher(word).find()));
+        }
+        assertThat(automaton.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void malformedOrUnsupportedPatternsAreRejected() {
+        for (String pattern : Arrays.asList("(ab", "ab)", "[ab", "*a", "a{2}", "a^b", "(^a|b)", "a$b", "\\q", "[z-a]",
+                "\\p{Foo}")) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new StopPatternAutomaton(Collections.singletonList(pattern)), pattern);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StopPhraseAutomatonTest {
+    @Test
+    public void lengthOfLongestPhraseEndingAtEveryTokenIsFound() {
+        StopPhraseAutomaton automaton = new StopPhraseAutomaton(
+                Arrays.asList("in order to", "order to", "on the other hand", "the other"));
+
+        assertThat(matchLengths(automaton, "we", "did", "it", "in", "order", "to", "win"))
+                .containsExactly(0, 0, 0, 0, 0, 3, 0);
+        assertThat(matchLengths(automaton, "on", "the", "other", "hand"))
+                .containsExactly(0, 0, 2, 4);
+    }
+
+    @Test
+    public void matchIsContinuedFromSuffixAfterMismatch() {
+        StopPhraseAutomaton automaton = new StopPhraseAutomaton(Arrays.asList("as well as", "well as such"));
+
+        assertThat(matchLengths(automaton, "as", "well", "as", "such"))
+                .containsExactly(0, 0, 3, 3);
+        assertThat(matchLengths(automaton, "as", "as", "well", "as"))
+                .containsExactly(0, 0, 0, 3);
+    }
+
+    @Test
+    public void phrasesAreMatchedRegardlessOfCaseAndSpacing() {
+        StopPhraseAutomaton automaton = new StopPhraseAutomaton(Arrays.asList("  As  Well\tas ", ""));
+
+        assertThat(automaton.size()).isEqualTo(1);
+        assertThat(automaton.maxPhraseLength()).isEqualTo(3);
+        assertThat(matchLengths(automaton, "AS", "well", "As")).containsExactly(0, 0, 3);
+    }
+
+    @Test
+    public void unknownAndMissingWordsRestartMatching() {
+        StopPhraseAutomaton automaton = new StopPhraseAutomaton(Collections.singletonList("as well as"));
+
+        assertThat(matchLengths(automaton, "as", "well", null, "as", "well", "as"))
+                .containsExactly(0, 0, 0, 0, 0, 3);
+        assertThat(matchLengths(automaton, "as", "very", "well", "as"))
+                .containsExactly(0, 0, 0, 0);
+    }
+
+    private static int[] matchLengths(StopPhraseAutomaton automaton, String... words) {
+        int[] lengths = new int[words.length];
+        int state = StopPhraseAutomaton.INITIAL_STATE;
+        for (int i = 0; i < words.length; i++) {
+            state = automaton.step(state, words[i]);
+            lengths[i] = automaton.matchLength(state);
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StopWordListRegistryTest {
+    private final StopWordListRegistry registry = new StopWordListRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private StopWordIndex load() {
+        loads.incrementAndGet();
+        return new CaseInsensitiveStringSet(Collections.singletonList("word"));
+    }
+
+    @Test
+    public void sameKeySharesOneIndex() throws IOException {
+        StopWordListRegistry.Lease first = registry.acquire("key", this::load);
+        StopWordListRegistry.Lease second = registry.acquire("key", this::load);
+
+        assertThat(second.index()).isSameAs(first.index());
+        assertThat(loads).hasValue(1);
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void differentKeysHaveDifferentIndexes() throws IOException {
+        StopWordListRegistry.Lease first = registry.acquire("key", this::load);
+        StopWordListRegistry.Lease second = registry.acquire("other key", this::load);
+
+        assertThat(second.index()).isNotSameAs(first.index());
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void indexIsDroppedWhenLastLeaseIsReleased() throws IOException {
+        StopWordListRegistry.Lease first = registry.acquire("key", this::load);
+        StopWordListRegistry.Lease second = registry.acquire("key", this::load);
+
+        first.release();
+        first.release();
+        assertThat(registry.size()).isEqualTo(1);
+
+        second.release();
+        assertThat(registry.size()).isZero();
+
+        registry.acquire("key", this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void failedLoadIsNotRegistered() {
+        assertThatThrownBy(() -> registry.acquire("key", () -> {
+            throw new IOException("Cannot read");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(registry.size()).isZero();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StopWordMatcherTest {
+    private StopWordsAnnotator annotator;
+    private StopWordMatcher matcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the,of,and");
+        props.put("stopwords.shorterThan", "2");
+        props.put("stopwords.patterns", "^\\d+$");
+        annotator = new StopWordsAnnotator(props);
+        matcher = annotator.matcher();
+    }
+
+    @AfterEach
+    void tearDown() {
+        annotator.unmount();
+    }
+
+    @Test
+    public void wordsAreMatchedByAllWordRules() {
+        assertThat(matcher.matches("The")).isTrue();
+        assertThat(matcher.matches(new StringBuilder("OF"))).isTrue();
+        assertThat(matcher.matches("a")).isTrue();
+        assertThat(matcher.matches("2021")).isTrue();
+        assertThat(matcher.matches("words")).isFalse();
+        assertThat(matcher.matches((CharSequence) null)).isFalse();
+    }
+
+    @Test
+    public void rangesOfArrayAreMatchedAsWords() {
+        char[] text = "The list of 42 words".toCharArray();
+
+        assertThat(matcher.matches(text, 0, 3)).isTrue();
+        assertThat(matcher.matches(text, 4, 4)).isFalse();
+        assertThat(matcher.matches(text, 9, 2)).isTrue();
+        assertThat(matcher.matches(text, 12, 2)).isTrue();
+        assertThat(matcher.matches(text, 1, 2)).isFalse();
+        assertThrows(IndexOutOfBoundsException.class, () -> matcher.matches(text, 18, 5));
+    }
+
+    @Test
+    public void allWordsAreMatchedIntoBitSet() {
+        assertThat(matcher.matchAll(new String[] {"The", "list", "of", "42", "words", null}))
+                .isEqualTo(BitSet.valueOf(new long[] {0b1101}));
+
+        char[] text = "The list of 42 words".toCharArray();
+        BitSet reused = BitSet.valueOf(new long[] {-1L});
+        matcher.matchAll(text, new int[] {0, 4, 9, 12, 15}, new int[] {3, 4, 2, 2, 5}, reused);
+
+        assertThat(reused.get(0, 5)).isEqualTo(BitSet.valueOf(new long[] {0b1101}));
+        assertThat(reused.get(5)).isTrue();
+    }
+
+    @Test
+    public void compactIndexIsMatchedOnArrayRanges() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the,of,and");
+        props.put("stopwords.index", "mphf");
+        StopWordsAnnotator mphfAnnotator = new StopWordsAnnotator(props);
+        try {
+            StopWordMatcher mphfMatcher = mphfAnnotator.matcher();
+            char[] text = "THE list OF words".toCharArray();
+
+            assertThat(Arrays.asList(mphfMatcher.matches(text, 0, 3), mphfMatcher.matches(text, 4, 4),
+                    mphfMatcher.matches(text, 9, 2))).containsExactly(true, false, true);
+        } finally {
+            mphfAnnotator.unmount();
+        }
+    }
+}
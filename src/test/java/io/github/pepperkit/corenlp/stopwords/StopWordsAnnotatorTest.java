@@ -8,20 +8,35 @@ package io.github.pepperkit.corenlp.stopwords;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 
+import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+// the allocation tests run first: once CoreLabel is mocked, the inline mock maker instruments its methods, which then
+// allocate on every call
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class StopWordsAnnotatorTest {
     @Test
     public void stopPosCategoriesPropIsSetUpIfProvided() throws IOException {
@@ -98,7 +113,7 @@ class StopWordsAnnotatorTest {
         props.put("stopwords.customList", "stop,words,list");
         StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
-        assertThat(annotator.stopwords).containsExactlyInAnyOrder("stop", "words", "list");
+        assertThat((CaseInsensitiveStringSet) annotator.stopwords).containsExactlyInAnyOrder("stop", "words", "list");
     }
 
     @Test
@@ -107,7 +122,7 @@ class StopWordsAnnotatorTest {
         props.put("stopwords.customListResourcesFilePath", "stop-words-list-test.txt");
         StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
-        assertThat(annotator.stopwords).containsExactlyInAnyOrder("stop", "words", "list", "in", "file");
+        assertThat((CaseInsensitiveStringSet) annotator.stopwords).containsExactlyInAnyOrder("stop", "words", "list", "in", "file");
     }
 
     @Test
@@ -120,13 +135,398 @@ class StopWordsAnnotatorTest {
         props.put("stopwords.customListFilePath", stopWordsFilePath);
         StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
-        assertThat(annotator.stopwords).containsExactlyInAnyOrder("stop", "words", "list", "in", "file");
+        assertThat((CaseInsensitiveStringSet) annotator.stopwords).containsExactlyInAnyOrder("stop", "words", "list", "in", "file");
+    }
+
+    @Test
+    public void annotatorsWithSameListShareIt() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "shared,stop,words");
+        StopWordsAnnotator first = new StopWordsAnnotator(props);
+        StopWordsAnnotator second = new StopWordsAnnotator(props);
+        final int registered = StopWordListRegistry.global().size();
+
+        assertThat(second.stopwords).isSameAs(first.stopwords);
+
+        first.unmount();
+        assertThat(StopWordListRegistry.global().size()).isEqualTo(registered);
+        second.unmount();
+        assertThat(StopWordListRegistry.global().size()).isEqualTo(registered - 1);
+    }
+
+    @Test
+    public void annotatorsWithDifferentIndexesDoNotShareList() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "shared,stop,words");
+        StopWordsAnnotator first = new StopWordsAnnotator(props);
+        props.put("stopwords.index", "mphf");
+        StopWordsAnnotator second = new StopWordsAnnotator(props);
+
+        assertThat(second.stopwords).isNotSameAs(first.stopwords);
+        first.unmount();
+        second.unmount();
+    }
+
+    @Test
+    public void changedFileIsReloadedIfWatched(@TempDir Path tempDir) throws IOException, InterruptedException {
+        final Path stopWordsFile = tempDir.resolve("stop-words.txt");
+        Files.write(stopWordsFile, Arrays.asList("stop", "words"), StandardCharsets.UTF_8);
+
+        final Properties props = new Properties();
+        props.put("stopwords.customListFilePath", stopWordsFile.toString());
+        props.put("stopwords.reload", "watch");
+        props.put("stopwords.reload.interval", "20");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+        try {
+            Annotation document = document(token("words", "word", "NN"), token("list", "list", "NN"));
+            annotator.annotate(document);
+            assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                    .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, false);
+
+            Files.write(stopWordsFile, Arrays.asList("stop", "list", "in", "file"), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(stopWordsFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (!annotator.stopwords.containsIgnoreCase("list") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            annotator.annotate(document);
+            assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                    .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(false, true);
+        } finally {
+            annotator.unmount();
+        }
+    }
+
+    @Test
+    public void wordsMatchingPatternsAreStopped() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.patterns", "^\\p{P}+$  ^\\d+$\t^[#@]");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("#nlp", "#nlp", "NN"), token("is", "be", "VBZ"),
+                token("42", "42", "CD"), token("...", "...", ":"), token("a4", "a4", "NN"));
+        annotator.annotate(document);
+
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class))
+                .containsExactly(true, false, true, true, false);
+        assertThat(annotator.requires()).doesNotContain(CoreAnnotations.LemmaAnnotation.class);
+    }
+
+    @Test
+    public void allTokensOfStopPhrasesAreStopped(@TempDir Path tempDir) throws IOException {
+        final Path phrasesFile = tempDir.resolve("stop-phrases.txt");
+        Files.write(phrasesFile, Arrays.asList("in order to", "as well as", "the other hand"), StandardCharsets.UTF_8);
+
+        final Properties props = new Properties();
+        props.put("stopwords.customPhraseListFilePath", phrasesFile.toString());
+        props.put("stopwords.customList", "to");
+        props.put("stopwords.output", "labels,mask");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("In", "in", "IN"), token("order", "order", "NN"),
+                token("to", "to", "TO"), token("read", "read", "VB"), token("as", "as", "RB"),
+                token("well", "well", "RB"), token("as", "as", "IN"), token("write", "write", "VB"));
+        annotator.annotate(document);
+
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class))
+                .containsExactly(true, true, true, false, true, true, true, false);
+        assertThat(document.get(StopWordsAnnotations.StopWordsMaskAnnotation.class))
+                .isEqualTo(bitSet(0, 1, 2, 4, 5, 6));
+    }
+
+    @Test
+    public void stopPhrasesAreMatchedOnLemmasIfConfigured(@TempDir Path tempDir) throws IOException {
+        final Path phrasesFile = tempDir.resolve("stop-phrases.txt");
+        Files.write(phrasesFile, Collections.singletonList("be able to"), StandardCharsets.UTF_8);
+
+        final Properties props = new Properties();
+        props.put("stopwords.customPhraseListFilePath", phrasesFile.toString());
+        props.put("stopwords.matchOn", "lemma");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("was", "be", "VBD"), token("able", "able", "JJ"),
+                token("to", "to", "TO"), token("go", "go", "VB"));
+        annotator.annotate(document);
+
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class))
+                .containsExactly(true, true, true, false);
+        assertThat(annotator.requires()).contains(CoreAnnotations.LemmaAnnotation.class);
+    }
+
+    @Test
+    public void streamedTokensAreDecidedAsInDocument(@TempDir Path tempDir) throws IOException {
+        final Path phrasesFile = tempDir.resolve("stop-phrases.txt");
+        Files.write(phrasesFile, Arrays.asList("in order to", "as well as"), StandardCharsets.UTF_8);
+
+        final Properties props = new Properties();
+        props.put("stopwords.customPhraseListFilePath", phrasesFile.toString());
+        props.put("stopwords.customList", "read");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        List<CoreLabel> tokens = Arrays.asList(token("In", "in", "IN"), token("order", "order", "NN"),
+                token("to", "to", "TO"), token("read", "read", "VB"), token("as", "as", "RB"),
+                token("well", "well", "RB"), token("write", "write", "VB"), token("as", "as", "IN"),
+                token("well", "well", "RB"), token("as", "as", "IN"));
+        List<CoreLabel> decided = new ArrayList<>();
+        annotator.annotateTokens(tokens.iterator()).forEachRemaining(decided::add);
+
+        assertThat(decided).containsExactlyElementsOf(tokens);
+        assertThat(decided).extracting(token -> token.get(StopWordsAnnotator.class))
+                .containsExactly(true, true, true, true, false, false, false, true, true, true);
+        assertThat(annotator.nonStopTokens(tokens.stream())).extracting(CoreLabel::word)
+                .containsExactly("as", "well", "write");
+    }
+
+    @Test
+    public void streamedTokensAreReadOnlyAsFarAsLongestPhrase(@TempDir Path tempDir) throws IOException {
+        final Path phrasesFile = tempDir.resolve("stop-phrases.txt");
+        Files.write(phrasesFile, Collections.singletonList("on the other hand"), StandardCharsets.UTF_8);
+
+        final Properties props = new Properties();
+        props.put("stopwords.customPhraseListFilePath", phrasesFile.toString());
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        final int[] read = {0};
+        Iterator<CoreLabel> endless = new Iterator<CoreLabel>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public CoreLabel next() {
+                read[0]++;
+                return token("word", "word", "NN");
+            }
+        };
+        Iterator<CoreLabel> filtered = annotator.nonStopTokens(endless);
+        for (int i = 0; i < 100; i++) {
+            filtered.next();
+        }
+
+        assertThat(read[0]).isEqualTo(100 + 3);
+    }
+
+    @Test
+    public void wordsAreMatchedRegardlessOfDefaultLocale() throws IOException {
+        final Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            final Properties props = new Properties();
+            props.put("stopwords.customList", "this,list");
+            StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+            Annotation document = document(token("THIS", "this", "DT"), token("LIST", "list", "NN"));
+            annotator.annotate(document);
+
+            assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                    .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, true);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void wordsAreNormalizedIfConfigured() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the,ﬁle");
+        props.put("stopwords.matchOn", "word");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+        props.put("stopwords.normalization", "nfkc");
+        StopWordsAnnotator normalizingAnnotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("Ｔｈｅ", "the", "DT"), token("file", "file", "NN"));
+        annotator.annotate(document);
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(false, false);
+
+        normalizingAnnotator.annotate(document);
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, true);
+        assertThat(normalizingAnnotator.matcher().matches("ＦＩＬＥ".toCharArray(), 0, 4)).isTrue();
+    }
+
+    @Test
+    public void unknownNormalizationIsRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the");
+        props.put("stopwords.normalization", "nfd");
+
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    public void namedListIsSelectedPerDocument() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the");
+        props.put("stopwords.lists.legal.customList", "hereby,whereas");
+        props.put("stopwords.lists.medical.customList", "patient");
+        props.put("stopwords.shorterThan", "2");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation defaultDocument = document(token("The", "the", "DT"), token("patient", "patient", "NN"),
+                token("hereby", "hereby", "RB"), token("a", "a", "DT"));
+        annotator.annotate(defaultDocument);
+        Annotation legalDocument = document(token("The", "the", "DT"), token("patient", "patient", "NN"),
+                token("hereby", "hereby", "RB"), token("a", "a", "DT"));
+        legalDocument.set(StopWordsAnnotations.StopWordsListAnnotation.class, "legal");
+        annotator.annotate(legalDocument);
+        Annotation medicalDocument = document(token("The", "the", "DT"), token("patient", "patient", "NN"),
+                token("hereby", "hereby", "RB"), token("a", "a", "DT"));
+        medicalDocument.set(StopWordsAnnotations.StopWordsListAnnotation.class, "medical");
+        annotator.annotate(medicalDocument);
+
+        assertThat(defaultDocument.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, false, false, true);
+        assertThat(legalDocument.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(false, false, true, true);
+        assertThat(medicalDocument.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(false, true, false, true);
+        annotator.unmount();
+    }
+
+    @Test
+    public void unknownNamedListIsRejected() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.lists.legal.customList", "hereby,whereas");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("hereby", "hereby", "RB"));
+        document.set(StopWordsAnnotations.StopWordsListAnnotation.class, "medical");
+
+        assertThrows(IllegalArgumentException.class, () -> annotator.annotate(document));
+        annotator.unmount();
+    }
+
+    @Test
+    public void malformedNamedListPropertyIsRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.lists.legal.words", "hereby,whereas");
+
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    public void namedListsAreSharedWithOtherAnnotators() throws IOException {
+        final Properties tenantProps = new Properties();
+        tenantProps.put("stopwords.customList", "tenant,words");
+        StopWordsAnnotator tenantAnnotator = new StopWordsAnnotator(tenantProps);
+        final int registered = StopWordListRegistry.global().size();
+
+        final Properties props = new Properties();
+        props.put("stopwords.lists.tenant.customList", "tenant,words");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+        assertThat(StopWordListRegistry.global().size()).isEqualTo(registered);
+
+        tenantAnnotator.unmount();
+        assertThat(StopWordListRegistry.global().size()).isEqualTo(registered);
+        annotator.unmount();
+        assertThat(StopWordListRegistry.global().size()).isEqualTo(registered - 1);
+    }
+
+    @Test
+    public void reloadOfListNotFromFileIsRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "stop,words");
+        props.put("stopwords.reload", "watch");
+
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    public void perfectHashIndexIsUsedIfConfigured() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customListResourcesFilePath", "stop-words-list-test.txt");
+        props.put("stopwords.index", "mphf");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        assertThat(annotator.stopwords).isInstanceOf(PerfectHashStopWordIndex.class);
+        assertThat(annotator.stopwords.size()).isEqualTo(5);
+        assertThat(annotator.stopwords.containsIgnoreCase("FILE")).isTrue();
+    }
+
+    @Test
+    public void offHeapIndexIsUsedIfConfigured(@TempDir Path tempDir) throws IOException {
+        final Path file = tempDir.resolve("stop-words.txt");
+        Files.write(file, Arrays.asList("Stop", "Ｗｏｒｄｓ"), StandardCharsets.UTF_8);
+        final Properties props = new Properties();
+        props.put("stopwords.customListFilePath", file.toString());
+        props.put("stopwords.index", "offheap");
+        props.put("stopwords.normalization", "nfkc");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        try {
+            assertThat(annotator.stopwords.size()).isEqualTo(2);
+            assertThat(annotator.stopwords.containsIgnoreCase("STOP")).isTrue();
+            assertThat(annotator.stopwords.containsIgnoreCase("words")).isTrue();
+            assertThat(annotator.matcher().matches("ｗｏｒｄｓ")).isTrue();
+        } finally {
+            annotator.unmount();
+        }
+
+        final Properties listProps = new Properties();
+        listProps.put("stopwords.customList", "stop,words");
+        listProps.put("stopwords.index", "offheap");
+        StopWordsAnnotator listAnnotator = new StopWordsAnnotator(listProps);
+        try {
+            assertThat(listAnnotator.stopwords).isInstanceOf(CompiledStopWordIndex.class);
+            assertThat(((CompiledStopWordIndex) listAnnotator.stopwords).offHeapBytes()).isPositive();
+        } finally {
+            listAnnotator.unmount();
+        }
+    }
+
+    @Test
+    public void unknownIndexIsRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "stop,words");
+        props.put("stopwords.index", "btree");
+
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    public void stopWordsAreSetIfCompiledWordsListProvided(@TempDir Path tempDir) throws IOException,
+            URISyntaxException {
+        URL res = getClass().getClassLoader().getResource("stop-words-list-test.txt");
+        final Path compiledFile = tempDir.resolve("stop-words-list-test.swl");
+        StopWordsListCompiler.compile(Paths.get(res.toURI()), compiledFile);
+
+        final Properties props = new Properties();
+        props.put("stopwords.compiledListFilePath", compiledFile.toString());
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        assertThat(annotator.stopwords).isInstanceOf(CompiledStopWordIndex.class);
+        assertThat(annotator.stopwords.size()).isEqualTo(5);
+        assertThat(annotator.stopwords.containsIgnoreCase("Words")).isTrue();
+        assertThat(annotator.stopwords.containsIgnoreCase("word")).isFalse();
+    }
+
+    @Test
+    public void compiledWordsListNormalizedOtherwiseIsRejected(@TempDir Path tempDir) throws IOException,
+            URISyntaxException {
+        URL res = getClass().getClassLoader().getResource("stop-words-list-test.txt");
+        final Path compiledFile = tempDir.resolve("stop-words-list-test.swl");
+        StopWordsListCompiler.compile(Paths.get(res.toURI()), compiledFile, true);
+
+        final Properties props = new Properties();
+        props.put("stopwords.compiledListFilePath", compiledFile.toString());
+
+        IOException e = assertThrows(IOException.class, () -> new StopWordsAnnotator(props));
+        assertThat(e).hasMessageContaining("compiled again");
+        props.put("stopwords.normalization", "nfkc");
+        new StopWordsAnnotator(props).unmount();
     }
 
     @Test
     public void wordIsStoppedIfPresentInStopList() throws IOException {
-        StopWordsAnnotator annotator = new StopWordsAnnotator(new Properties());
-        annotator.stopwords = new HashSet<>(Collections.singletonList("words"));
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
         Annotation annotation = mock(Annotation.class);
         CoreLabel wordToStop = mockWordToStopToken();
@@ -140,9 +540,10 @@ class StopWordsAnnotatorTest {
 
     @Test
     public void wordIsStoppedIfItHasLenghtLessThenAllowed() throws IOException {
-        StopWordsAnnotator annotator = new StopWordsAnnotator(new Properties());
-        annotator.stopwords = new HashSet<>(Collections.singletonList("something"));
-        annotator.minimumWordLength = 6;
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "something");
+        props.put("stopwords.shorterThan", "6");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
         Annotation annotation = mock(Annotation.class);
         CoreLabel wordToStop = mockWordToStopToken();
@@ -156,9 +557,10 @@ class StopWordsAnnotatorTest {
 
     @Test
     public void wordIsStoppedIfItHasLemmaLenghtLessThenAllowed() throws IOException {
-        StopWordsAnnotator annotator = new StopWordsAnnotator(new Properties());
-        annotator.stopwords = new HashSet<>(Collections.singletonList("something"));
-        annotator.minimumLemmaLength = 5;
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "something");
+        props.put("stopwords.withLemmasShorterThan", "5");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
         Annotation annotation = mock(Annotation.class);
         CoreLabel wordToStop = mockWordToStopToken();
@@ -172,9 +574,10 @@ class StopWordsAnnotatorTest {
 
     @Test
     public void wordIsStoppedIfItHasStoppedPosCategory() throws IOException {
-        StopWordsAnnotator annotator = new StopWordsAnnotator(new Properties());
-        annotator.stopwords = new HashSet<>(Collections.singletonList("something"));
-        annotator.stopPosCategories = new HashSet<>(Collections.singletonList("NONE"));
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "something");
+        props.put("stopwords.withPosCategories", "NONE");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
 
         Annotation annotation = mock(Annotation.class);
         CoreLabel wordToStop = mockWordToStopToken();
@@ -186,6 +589,557 @@ class StopWordsAnnotatorTest {
         verify(regularWord, times(1)).set(StopWordsAnnotator.class, false);
     }
 
+    @Test
+    public void wordIsStoppedIfOnlyRulesOtherThanListAreProvided() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.withPosCategories", "NONE");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation annotation = mock(Annotation.class);
+        CoreLabel wordToStop = mockWordToStopToken();
+        CoreLabel regularWord = mockRegularWordToken();
+        when(annotation.get(any())).thenReturn(Arrays.asList(wordToStop, regularWord));
+
+        annotator.annotate(annotation);
+        verify(wordToStop, times(1)).set(StopWordsAnnotator.class, true);
+        verify(regularWord, times(1)).set(StopWordsAnnotator.class, false);
+    }
+
+    @Test
+    public void wordIsNotCheckedAgainstRulesWhichAreNotProvided() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation annotation = mock(Annotation.class);
+        CoreLabel regularWord = mockRegularWordToken();
+        when(annotation.get(any())).thenReturn(Collections.singletonList(regularWord));
+
+        annotator.annotate(annotation);
+        verify(regularWord, never()).tag();
+        verify(regularWord, times(1)).set(StopWordsAnnotator.class, false);
+    }
+
+    @Test
+    public void onlyWordIsReadIfMatchingOnWord() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        props.put("stopwords.shorterThan", "2");
+        props.put("stopwords.matchOn", "word");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation annotation = mock(Annotation.class);
+        CoreLabel wordToStop = mockWordToStopToken();
+        CoreLabel regularWord = mockRegularWordToken();
+        when(annotation.get(any())).thenReturn(Arrays.asList(wordToStop, regularWord));
+
+        annotator.annotate(annotation);
+        verify(wordToStop, times(1)).set(StopWordsAnnotator.class, true);
+        verify(regularWord, times(1)).set(StopWordsAnnotator.class, false);
+        verify(wordToStop, never()).lemma();
+        verify(regularWord, never()).lemma();
+        verify(regularWord, never()).tag();
+        assertThat(annotator.requires()).containsExactlyInAnyOrder(
+                CoreAnnotations.TextAnnotation.class, CoreAnnotations.TokensAnnotation.class);
+    }
+
+    @Test
+    public void lemmaIsMatchedIfMatchingOnLemma() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "word");
+        props.put("stopwords.matchOn", "lemma");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("words", "word", "NNS"), token("word", "wordy", "NN"));
+        annotator.annotate(document);
+
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, false);
+        assertThat(annotator.requires()).containsExactlyInAnyOrder(CoreAnnotations.TextAnnotation.class,
+                CoreAnnotations.TokensAnnotation.class, CoreAnnotations.LemmaAnnotation.class);
+    }
+
+    @Test
+    public void requirementsIncludeAnnotationsOfAllConfiguredRules() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        props.put("stopwords.withPosCategories", "DT");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        assertThat(annotator.requires()).containsExactlyInAnyOrder(CoreAnnotations.TextAnnotation.class,
+                CoreAnnotations.TokensAnnotation.class, CoreAnnotations.PartOfSpeechAnnotation.class,
+                CoreAnnotations.LemmaAnnotation.class);
+    }
+
+    @Test
+    public void adaptiveOrderingStopsTheSameWords() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        props.put("stopwords.withPosCategories", "NONE");
+        props.put("stopwords.shorterThan", "6");
+        props.put("stopwords.adaptiveOrdering", "true");
+        props.put("stopwords.adaptiveOrdering.window", "1");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation annotation = mock(Annotation.class);
+        CoreLabel wordToStop = mockWordToStopToken();
+        CoreLabel regularWord = mockRegularWordToken();
+        when(annotation.get(any())).thenReturn(Arrays.asList(wordToStop, regularWord));
+
+        annotator.annotate(annotation);
+        annotator.annotate(annotation);
+        verify(wordToStop, times(2)).set(StopWordsAnnotator.class, true);
+        verify(regularWord, times(2)).set(StopWordsAnnotator.class, false);
+    }
+
+    @Test
+    public void stopMaskIsSetInsteadOfLabelsIfConfigured() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words,the");
+        props.put("stopwords.output", "mask");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("justaword", "justaword", "NN"), token("words", "word", "NN"),
+                token("The", "the", "DT"), token("end", "end", "NN"));
+        annotator.annotate(document);
+
+        assertThat(document.get(StopWordsAnnotations.StopWordsMaskAnnotation.class)).isEqualTo(bitSet(1, 2));
+        assertThat(StopWordsAnnotations.isStopped(document, 1)).isTrue();
+        assertThat(StopWordsAnnotations.isStopped(document, 3)).isFalse();
+        assertThat(StopWordsAnnotations.nonStoppedTokens(document))
+                .extracting(CoreLabel::word).containsExactly("justaword", "end");
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                .allMatch(token -> token.get(StopWordsAnnotator.class) == null);
+        assertThat(annotator.requirementsSatisfied())
+                .containsExactly(StopWordsAnnotations.StopWordsMaskAnnotation.class);
+    }
+
+    @Test
+    public void emptyStopMaskIsSetIfNoRulesApplyToDocument() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.lists.legal.customList", "hereby,whereas");
+        props.put("stopwords.output", "mask");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("hereby", "hereby", "RB"), token("end", "end", "NN"));
+        annotator.annotate(document);
+
+        assertThat(document.get(StopWordsAnnotations.StopWordsMaskAnnotation.class)).isEqualTo(bitSet());
+        assertThat(StopWordsAnnotations.nonStoppedTokens(document))
+                .extracting(CoreLabel::word).containsExactly("hereby", "end");
+        annotator.unmount();
+    }
+
+    @Test
+    public void nonStoppedTokensOfSentenceAreReadFromMask() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words,the");
+        props.put("stopwords.output", "labels,mask");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("justaword", "justaword", "NN"), token("words", "word", "NN"),
+                token("The", "the", "DT"), token("end", "end", "NN"));
+        annotator.annotate(document);
+
+        Annotation sentence = new Annotation("");
+        sentence.set(CoreAnnotations.TokenBeginAnnotation.class, 1);
+        sentence.set(CoreAnnotations.TokenEndAnnotation.class, 3);
+        assertThat(StopWordsAnnotations.nonStoppedTokens(document, sentence)).isEmpty();
+        assertThat(document.get(CoreAnnotations.TokensAnnotation.class).get(1).get(StopWordsAnnotator.class)).isTrue();
+    }
+
+    @Test
+    public void nonStopTokensAreSetOnDocumentAndSentencesIfConfigured() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words,the");
+        props.put("stopwords.output", "filtered");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("justaword", "justaword", "NN"), token("words", "word", "NN"),
+                token("The", "the", "DT"), token("end", "end", "NN"));
+        Annotation firstSentence = new Annotation("");
+        firstSentence.set(CoreAnnotations.TokenBeginAnnotation.class, 0);
+        firstSentence.set(CoreAnnotations.TokenEndAnnotation.class, 2);
+        Annotation secondSentence = new Annotation("");
+        secondSentence.set(CoreAnnotations.TokenBeginAnnotation.class, 2);
+        secondSentence.set(CoreAnnotations.TokenEndAnnotation.class, 4);
+        document.set(CoreAnnotations.SentencesAnnotation.class, Arrays.asList(firstSentence, secondSentence));
+
+        annotator.annotate(document);
+
+        assertThat(document.get(StopWordsAnnotations.NonStopTokensAnnotation.class))
+                .extracting(CoreLabel::word).containsExactly("justaword", "end");
+        assertThat(firstSentence.get(StopWordsAnnotations.NonStopTokensAnnotation.class))
+                .extracting(CoreLabel::word).containsExactly("justaword");
+        assertThat(secondSentence.get(StopWordsAnnotations.NonStopTokensAnnotation.class))
+                .extracting(CoreLabel::word).containsExactly("end");
+        assertThat(document.get(StopWordsAnnotations.StopWordsMaskAnnotation.class)).isNull();
+    }
+
+    @Test
+    public void allTokensAreNonStopIfNoRulesApplyToDocument() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.lists.legal.customList", "hereby,whereas");
+        props.put("stopwords.output", "filtered");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        Annotation document = document(token("hereby", "hereby", "RB"), token("end", "end", "NN"));
+        Annotation sentence = new Annotation("");
+        sentence.set(CoreAnnotations.TokenBeginAnnotation.class, 1);
+        sentence.set(CoreAnnotations.TokenEndAnnotation.class, 2);
+        document.set(CoreAnnotations.SentencesAnnotation.class, Collections.singletonList(sentence));
+        annotator.annotate(document);
+
+        assertThat(document.get(StopWordsAnnotations.NonStopTokensAnnotation.class))
+                .extracting(CoreLabel::word).containsExactly("hereby", "end");
+        assertThat(sentence.get(StopWordsAnnotations.NonStopTokensAnnotation.class))
+                .extracting(CoreLabel::word).containsExactly("end");
+        annotator.unmount();
+    }
+
+    @Test
+    public void unknownOutputIsRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        props.put("stopwords.output", "labels,bits");
+
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    public void allDocumentsAreAnnotatedInParallel() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        props.put("stopwords.threads", "2");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        List<Annotation> documents = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Annotation document = new Annotation("");
+            document.set(CoreAnnotations.TokensAnnotation.class,
+                    Arrays.asList(token("words", "word", "NN"), token("justaword", "justaword", "NN")));
+            documents.add(document);
+        }
+
+        try {
+            annotator.annotateAll(new ArrayDeque<>(documents));
+        } finally {
+            annotator.unmount();
+        }
+
+        for (Annotation document : documents) {
+            List<CoreLabel> tokens = document.get(CoreAnnotations.TokensAnnotation.class);
+            assertThat(tokens.get(0).get(StopWordsAnnotator.class)).isTrue();
+            assertThat(tokens.get(1).get(StopWordsAnnotator.class)).isFalse();
+        }
+    }
+
+    @Test
+    public void longDocumentsAreDecidedInParallelAsSequentially(@TempDir Path tempDir) throws IOException {
+        final Path phrasesFile = tempDir.resolve("stop-phrases.txt");
+        Files.write(phrasesFile, Arrays.asList("in order to", "as well as"), StandardCharsets.UTF_8);
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the,to");
+        props.put("stopwords.withPosCategories", "DT");
+        props.put("stopwords.customPhraseListFilePath", phrasesFile.toString());
+        props.put("stopwords.output", "labels,mask,filtered");
+        props.put("stopwords.cache.size", "64");
+        StopWordsAnnotator sequential = new StopWordsAnnotator(props);
+        props.put("stopwords.parallel.threshold", "1000");
+        props.put("stopwords.parallel.chunkSize", "100");
+        props.put("stopwords.threads", "4");
+        StopWordsAnnotator parallel = new StopWordsAnnotator(props);
+
+        // the phrases are spread over the document, so some of them cross the boundaries of the chunks
+        final String[][] words = {{"In", "in", "IN"}, {"order", "order", "NN"}, {"to", "to", "TO"},
+                {"read", "read", "VB"}, {"the", "the", "DT"}, {"as", "as", "RB"}, {"well", "well", "RB"},
+                {"as", "as", "IN"}, {"write", "write", "VB"}, {"a", "a", "DT"}, {"text", "text", "NN"}};
+        final Random random = new Random(42);
+        List<CoreLabel> sequentialTokens = new ArrayList<>();
+        List<CoreLabel> parallelTokens = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final int first = random.nextInt(words.length);
+            final int length = 1 + random.nextInt(4);
+            for (int j = first; j < Math.min(words.length, first + length); j++) {
+                sequentialTokens.add(token(words[j][0], words[j][1], words[j][2]));
+                parallelTokens.add(token(words[j][0], words[j][1], words[j][2]));
+            }
+        }
+        Annotation sequentialDocument = document(sequentialTokens.toArray(new CoreLabel[0]));
+        Annotation parallelDocument = document(parallelTokens.toArray(new CoreLabel[0]));
+        try {
+            sequential.annotate(sequentialDocument);
+            parallel.annotate(parallelDocument);
+        } finally {
+            sequential.unmount();
+            parallel.unmount();
+        }
+
+        assertThat(parallelTokens).extracting(token -> token.get(StopWordsAnnotator.class))
+                .containsExactlyElementsOf(sequentialTokens.stream()
+                        .map(token -> token.get(StopWordsAnnotator.class))::iterator);
+        assertThat(parallelDocument.get(StopWordsAnnotations.StopWordsMaskAnnotation.class))
+                .isEqualTo(sequentialDocument.get(StopWordsAnnotations.StopWordsMaskAnnotation.class));
+        assertThat(parallelDocument.get(StopWordsAnnotations.NonStopTokensAnnotation.class))
+                .extracting(CoreLabel::word)
+                .containsExactlyElementsOf(sequentialDocument.get(StopWordsAnnotations.NonStopTokensAnnotation.class)
+                        .stream().map(CoreLabel::word)::iterator);
+        // every token not stopped by its POS category is looked up in the cache, in the chunks as sequentially
+        assertThat(parallel.cacheStats().hitCount() + parallel.cacheStats().missCount())
+                .isEqualTo(sequential.cacheStats().hitCount() + sequential.cacheStats().missCount())
+                .isEqualTo(parallelTokens.stream().filter(token -> !token.tag().equals("DT")).count());
+    }
+
+    @Test
+    public void invalidParallelAnnotationPropertiesAreRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "stop,words");
+        props.put("stopwords.parallel.threshold", "-1");
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+
+        props.put("stopwords.parallel.threshold", "1000");
+        props.put("stopwords.parallel.chunkSize", "0");
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    @Order(1)
+    public void annotateDoesNotAllocatePerToken() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "The,a,of,and,to,in");
+        props.put("stopwords.withPosCategories", "DT,IN");
+        props.put("stopwords.shorterThan", "2");
+        props.put("stopwords.withLemmasShorterThan", "2");
+
+        assertThat(allocatedBytesPerToken(props)).isLessThan(0.01);
+    }
+
+    @Test
+    @Order(1)
+    public void cachedAnnotateDoesNotAllocatePerToken() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "The,a,of,and,to,in");
+        props.put("stopwords.withPosCategories", "DT,IN");
+        props.put("stopwords.cache.size", "1024");
+
+        assertThat(allocatedBytesPerToken(props)).isLessThan(0.01);
+    }
+
+    private static double allocatedBytesPerToken(Properties props) throws IOException {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+
+        final String[] words = {"The", "Quick", "brown", "fox", "jumps", "OVER", "the", "lazy", "dog", "In", "a", "Hurry"};
+        final int tokensCount = 10_000;
+        List<CoreLabel> tokens = new ArrayList<>(tokensCount);
+        for (int i = 0; i < tokensCount; i++) {
+            CoreLabel token = new CoreLabel();
+            token.setWord(words[i % words.length]);
+            token.setLemma(words[i % words.length].toLowerCase());
+            token.setTag(i % 3 == 0 ? "DT" : "NN");
+            tokens.add(token);
+        }
+        Annotation annotation = new Annotation("");
+        annotation.set(CoreAnnotations.TokensAnnotation.class, tokens);
+
+        // warm up, so the annotation key is added to every token and the annotate method is compiled
+        for (int i = 0; i < 200; i++) {
+            annotator.annotate(annotation);
+        }
+
+        final int iterations = 100;
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            annotator.annotate(annotation);
+        }
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        annotator.unmount();
+
+        return (double) allocated / (iterations * tokensCount);
+    }
+
+    @Test
+    public void cachedDecisionsAreCounted() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the,of");
+        props.put("stopwords.withPosCategories", "DT");
+        props.put("stopwords.cache.size", "128");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+        try {
+            for (int i = 0; i < 2; i++) {
+                Annotation document = document(token("The", "the", "DT"), token("list", "list", "NN"),
+                        token("of", "of", "IN"), token("the", "the", "DT"), token("words", "word", "NNS"));
+                annotator.annotate(document);
+                assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                        .extracting(token -> token.get(StopWordsAnnotator.class))
+                        .containsExactly(true, false, true, true, false);
+            }
+
+            // the determiners are stopped by their POS category before the cache is looked up
+            VerdictCacheStats stats = annotator.cacheStats();
+            assertThat(stats.missCount()).isEqualTo(3);
+            assertThat(stats.hitCount()).isEqualTo(3);
+            assertThat(stats.hitRatio()).isEqualTo(0.5);
+        } finally {
+            annotator.unmount();
+        }
+    }
+
+    @Test
+    public void cachedDecisionsAreDroppedWhenListIsReloaded(@TempDir Path tempDir)
+            throws IOException, InterruptedException {
+        final Path stopWordsFile = tempDir.resolve("stop-words.txt");
+        Files.write(stopWordsFile, Collections.singletonList("words"), StandardCharsets.UTF_8);
+        final Properties props = new Properties();
+        props.put("stopwords.customListFilePath", stopWordsFile.toString());
+        props.put("stopwords.reload", "watch");
+        props.put("stopwords.reload.interval", "20");
+        props.put("stopwords.cache.size", "64");
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+        try {
+            Annotation document = document(token("words", "word", "NN"), token("list", "list", "NN"));
+            annotator.annotate(document);
+            assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                    .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, false);
+
+            Files.write(stopWordsFile, Collections.singletonList("list"), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(stopWordsFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (!annotator.stopwords.containsIgnoreCase("list") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            annotator.annotate(document);
+            assertThat(document.get(CoreAnnotations.TokensAnnotation.class))
+                    .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(false, true);
+        } finally {
+            annotator.unmount();
+        }
+    }
+
+    @Test
+    public void invalidCacheSizeIsRejected() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "stop,words");
+        props.put("stopwords.cache.size", "-1");
+
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    @Test
+    public void metricsAreRecordedIfProvided(@TempDir Path tempDir) throws IOException {
+        final Path phrasesFile = tempDir.resolve("stop-phrases.txt");
+        Files.write(phrasesFile, Collections.singletonList("in order to"), StandardCharsets.UTF_8);
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "the,of,metrics");
+        props.put("stopwords.lists.legal.customList", "hereby,metrics");
+        props.put("stopwords.shorterThan", "2");
+        props.put("stopwords.withPosCategories", "DT");
+        props.put("stopwords.customPhraseListFilePath", phrasesFile.toString());
+        RecordingMetrics metrics = new RecordingMetrics();
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props, metrics);
+        try {
+            annotator.annotate(document(token("The", "the", "DT"), token(",", ",", ","), token("list", "list", "NN"),
+                    token("of", "of", "IN"), token("in", "in", "IN"), token("order", "order", "NN"),
+                    token("to", "to", "TO")));
+        } finally {
+            annotator.unmount();
+        }
+
+        assertThat(metrics.stopped).containsOnly(entry(StopWordsMetrics.Rule.WORD_LENGTH, 1),
+                entry(StopWordsMetrics.Rule.POS_CATEGORY, 1), entry(StopWordsMetrics.Rule.LIST, 1),
+                entry(StopWordsMetrics.Rule.PHRASE, 3));
+        assertThat(metrics.documents).isEqualTo(1);
+        assertThat(metrics.tokens).isEqualTo(7);
+        assertThat(metrics.listsLoaded).containsOnly(entry("default", 3), entry("legal", 2));
+    }
+
+    @Test
+    public void metricsRecordDocumentsWithoutRules() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.lists.legal.customList", "hereby,whereas");
+        RecordingMetrics metrics = new RecordingMetrics();
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props, metrics);
+        try {
+            annotator.annotate(document(token("hereby", "hereby", "RB"), token("end", "end", "NN")));
+        } finally {
+            annotator.unmount();
+        }
+
+        assertThat(metrics.stopped).isEmpty();
+        assertThat(metrics.documents).isEqualTo(1);
+        assertThat(metrics.tokens).isEqualTo(2);
+    }
+
+    @Test
+    public void metricsAreCreatedFromClassProperty() throws IOException {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "stop,words");
+        props.put("stopwords.metrics.class", RecordingMetrics.class.getName());
+        final int created = RecordingMetrics.CREATED.get();
+        new StopWordsAnnotator(props).unmount();
+        assertThat(RecordingMetrics.CREATED.get()).isEqualTo(created + 1);
+
+        props.put("stopwords.metrics.class", String.class.getName());
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsAnnotator(props));
+    }
+
+    public static class RecordingMetrics implements StopWordsMetrics {
+        static final java.util.concurrent.atomic.AtomicInteger CREATED = new java.util.concurrent.atomic.AtomicInteger();
+
+        final Map<Rule, Integer> stopped = new EnumMap<>(Rule.class);
+        final Map<String, Integer> listsLoaded = new HashMap<>();
+        int documents;
+        int tokens;
+
+        public RecordingMetrics() {
+            CREATED.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void documentAnnotated(int tokensCount, long durationNanos) {
+            assertThat(durationNanos).isNotNegative();
+            documents++;
+            tokens += tokensCount;
+        }
+
+        @Override
+        public synchronized void tokensStopped(Rule rule, int count) {
+            stopped.merge(rule, count, Integer::sum);
+        }
+
+        @Override
+        public synchronized void listLoaded(String listName, int wordsCount, long durationNanos) {
+            listsLoaded.put(listName == null ? "default" : listName, wordsCount);
+        }
+    }
+
+    private static Annotation document(CoreLabel... tokens) {
+        Annotation document = new Annotation("");
+        document.set(CoreAnnotations.TokensAnnotation.class, new ArrayList<>(Arrays.asList(tokens)));
+        return document;
+    }
+
+    private static BitSet bitSet(int... bits) {
+        BitSet bitSet = new BitSet();
+        for (int bit : bits) {
+            bitSet.set(bit);
+        }
+        return bitSet;
+    }
+
+    private static CoreLabel token(String word, String lemma, String tag) {
+        CoreLabel token = new CoreLabel();
+        token.setWord(word);
+        token.setLemma(lemma);
+        token.setTag(tag);
+        return token;
+    }
+
     private CoreLabel mockWordToStopToken() {
         CoreLabel wordToStop = mock(CoreLabel.class);
         when(wordToStop.word()).thenReturn("words");
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StopWordsFileWatcherTest {
+
+    @Test
+    public void changeIsNotifiedAgainUntilHandled(@TempDir Path tempDir) throws IOException, InterruptedException {
+        final Path file = tempDir.resolve("stop-words.txt");
+        Files.write(file, Collections.singletonList("words"), StandardCharsets.UTF_8);
+        final AtomicInteger notifications = new AtomicInteger();
+        // the first two notifications fail, as if the file was caught half-written
+        try (StopWordsFileWatcher ignored = new StopWordsFileWatcher(file, 10,
+                () -> notifications.incrementAndGet() > 2)) {
+            Files.write(file, Collections.singletonList("other words"), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (notifications.get() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+        }
+
+        assertThat(notifications.get()).isEqualTo(3);
+    }
+}
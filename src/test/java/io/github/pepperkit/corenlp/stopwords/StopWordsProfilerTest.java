@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StopWordsProfilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CoreLabel token(String word, String lemma) {
+        CoreLabel token = new CoreLabel();
+        token.setWord(word);
+        token.setLemma(lemma);
+        return token;
+    }
+
+    /**
+     * Generates documents of Zipf-distributed words, so the word of rank 0 is the most frequent one.
+     */
+    private static List<List<String>> zipfCorpus(int documents, int vocabulary, int documentLength) {
+        final double[] cumulative = new double[vocabulary];
+        double sum = 0;
+        for (int rank = 0; rank < vocabulary; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        final Random random = new Random(42);
+        final List<List<String>> corpus = new ArrayList<>();
+        for (int d = 0; d < documents; d++) {
+            final List<String> document = new ArrayList<>();
+            for (int i = 0; i < documentLength; i++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                rank = rank >= 0 ? rank : -rank - 1;
+                document.add("w" + Math.min(rank, vocabulary - 1));
+            }
+            corpus.add(document);
+        }
+        return corpus;
+    }
+
+    private static Map<String, Long> exactDocumentFrequencies(List<List<String>> corpus) {
+        final Map<String, Long> frequencies = new HashMap<>();
+        for (List<String> document : corpus) {
+            document.stream().distinct().forEach(word -> frequencies.merge(word, 1L, Long::sum));
+        }
+        return frequencies;
+    }
+
+    @Test
+    public void lemmasAreCountedOncePerDocument() {
+        StopWordsProfiler profiler = new StopWordsProfiler(10);
+        profiler.addDocument(Arrays.asList("the", "The", "THE", "cat"));
+        profiler.addDocument(Arrays.asList("the", "dog"));
+
+        assertThat(profiler.documentsCount()).isEqualTo(2);
+        assertThat(profiler.documentFrequency("the")).isEqualTo(2);
+        assertThat(profiler.documentFrequency("cat")).isEqualTo(1);
+        assertThat(profiler.documentFrequency("bird")).isZero();
+        assertThat(profiler.mostFrequent(1)).containsExactly("the");
+    }
+
+    @Test
+    public void annotatedDocumentsAreCountedByLemmasOrWords() {
+        StopWordsProfiler profiler = new StopWordsProfiler(10);
+        Annotation first = new Annotation("Cats were there");
+        first.set(CoreAnnotations.TokensAnnotation.class,
+                Arrays.asList(token("Cats", "cat"), token("were", "be"), token("there", null)));
+        Annotation second = new Annotation("A cat is");
+        second.set(CoreAnnotations.TokensAnnotation.class,
+                Arrays.asList(token("A", "a"), token("cat", "cat"), token("is", "be")));
+        profiler.addDocument(first);
+        profiler.addDocument(second);
+
+        assertThat(profiler.mostFrequent(2)).containsExactly("be", "cat");
+        assertThat(profiler.documentFrequency("there")).isEqualTo(1);
+        assertThat(profiler.documentFrequency("were")).isZero();
+    }
+
+    @Test
+    public void mostFrequentLemmasOfLargeCorpusAreFound() {
+        List<List<String>> corpus = zipfCorpus(2000, 50_000, 200);
+        Map<String, Long> exact = exactDocumentFrequencies(corpus);
+        StopWordsProfiler profiler = new StopWordsProfiler(200);
+        corpus.forEach(profiler::addDocument);
+
+        List<String> expected = new ArrayList<>(exact.keySet());
+        expected.sort((a, b) -> Long.compare(exact.get(b), exact.get(a)));
+        // the words of equal frequencies may be ranked in any order
+        assertThat(profiler.mostFrequent(20)).extracting(exact::get)
+                .containsExactlyElementsOf(expected.subList(0, 20).stream().map(exact::get)::iterator);
+        for (String word : exact.keySet()) {
+            assertThat(profiler.documentFrequency(word)).isGreaterThanOrEqualTo(exact.get(word));
+        }
+        for (String word : expected.subList(0, 20)) {
+            assertThat(profiler.documentFrequency(word)).isEqualTo(exact.get(word));
+        }
+    }
+
+    @Test
+    public void lemmasAreSelectedByIdf() {
+        StopWordsProfiler profiler = new StopWordsProfiler(100);
+        for (int d = 0; d < 100; d++) {
+            List<String> document = new ArrayList<>(Collections.singletonList("always"));
+            if (d % 2 == 0) {
+                document.add("often");
+            }
+            if (d % 10 == 0) {
+                document.add("rarely");
+            }
+            document.add("unique" + d);
+            profiler.addDocument(document);
+        }
+
+        assertThat(profiler.withIdfBelow(Math.log(2))).containsExactly("always", "often");
+        assertThat(profiler.withIdfBelow(Math.log(10))).containsExactly("always", "often", "rarely");
+        assertThat(profiler.inverseDocumentFrequency("always")).isLessThan(0.0);
+        assertThat(profiler.inverseDocumentFrequency("missing")).isEqualTo(Math.log(100));
+    }
+
+    @Test
+    public void stopListIsLoadedByAnnotator() throws IOException {
+        StopWordsProfiler profiler = new StopWordsProfiler(10);
+        profiler.addDocument(Arrays.asList("the", "cat"));
+        profiler.addDocument(Arrays.asList("the", "dog", "of"));
+        profiler.addDocument(Arrays.asList("the", "of"));
+        Path list = tempDir.resolve("stop-words.txt");
+        StopWordsProfiler.write(profiler.mostFrequent(2), list);
+
+        assertThat(Files.readAllLines(list)).containsExactly("the", "of");
+        Properties props = new Properties();
+        props.put("stopwords.customListFilePath", list.toString());
+        StopWordsAnnotator annotator = new StopWordsAnnotator(props);
+        try {
+            assertThat(annotator.matcher().matches("Of")).isTrue();
+            assertThat(annotator.matcher().matches("cat")).isFalse();
+        } finally {
+            annotator.unmount();
+        }
+    }
+
+    @Test
+    public void nonPositiveSizesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsProfiler(0));
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsProfiler(10, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsProfiler(10, 1024, 0));
+    }
+
+    @Test
+    public void sketchTooLargeToBeAllocatedIsRejected() {
+        // the width of the default sketch would overflow an int, and its size would overflow an array
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsProfiler(1 << 28));
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsProfiler(10, Integer.MAX_VALUE, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StopWordsProfiler(10, 1 << 29, 4));
+    }
+}
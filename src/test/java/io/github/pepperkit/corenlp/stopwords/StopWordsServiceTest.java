@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StopWordsServiceTest {
+
+    private static Properties properties() {
+        final Properties props = new Properties();
+        props.put("stopwords.customList", "words");
+        return props;
+    }
+
+    private static Annotation document() {
+        CoreLabel stopped = new CoreLabel();
+        stopped.setWord("words");
+        stopped.setLemma("word");
+        CoreLabel kept = new CoreLabel();
+        kept.setWord("justaword");
+        kept.setLemma("justaword");
+        Annotation document = new Annotation("");
+        document.set(CoreAnnotations.TokensAnnotation.class, Arrays.asList(stopped, kept));
+        return document;
+    }
+
+    @Test
+    public void submittedDocumentsAreAnnotated() throws IOException, InterruptedException {
+        StopWordsAnnotator annotator = new StopWordsAnnotator(properties());
+        List<CompletableFuture<Annotation>> results = new ArrayList<>();
+        try (StopWordsService service = new StopWordsService(annotator, 4)) {
+            for (int i = 0; i < 100; i++) {
+                results.add(service.submit(document()));
+            }
+        } finally {
+            annotator.unmount();
+        }
+
+        for (CompletableFuture<Annotation> result : results) {
+            assertThat(result).isDone();
+            assertThat(result.join().get(CoreAnnotations.TokensAnnotation.class))
+                    .extracting(token -> token.get(StopWordsAnnotator.class)).containsExactly(true, false);
+        }
+    }
+
+    @Test
+    public void submittersAreHeldBackAtMaximumConcurrency() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        StopWordsAnnotator annotator = new StopWordsAnnotator(properties()) {
+            @Override
+            public void annotate(Annotation annotation) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                super.annotate(annotation);
+            }
+        };
+        try (StopWordsService service = new StopWordsService(annotator, 2)) {
+            CompletableFuture<Annotation> first = service.submit(document());
+            CompletableFuture<Annotation> second = service.submit(document());
+            assertThat(service.trySubmit(document(), 50, TimeUnit.MILLISECONDS)).isNull();
+
+            release.countDown();
+            first.join();
+            second.join();
+            CompletableFuture<Annotation> third = service.trySubmit(document(), 10, TimeUnit.SECONDS);
+            assertThat(third).isNotNull();
+            third.join();
+        } finally {
+            annotator.unmount();
+        }
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void failedDocumentDoesNotHoldItsPermit() throws IOException, InterruptedException {
+        StopWordsAnnotator annotator = new StopWordsAnnotator(properties());
+        try (StopWordsService service = new StopWordsService(annotator, 1)) {
+            Annotation withoutTokens = new Annotation("");
+            CompletableFuture<Annotation> failed = service.submit(withoutTokens);
+            ExecutionException exception = assertThrows(ExecutionException.class, failed::get);
+            assertThat(exception.getCause()).isInstanceOf(NullPointerException.class);
+
+            CompletableFuture<Annotation> next = service.trySubmit(document(), 10, TimeUnit.SECONDS);
+            assertThat(next).isNotNull();
+            assertThat(next.join().get(CoreAnnotations.TokensAnnotation.class).get(0).get(StopWordsAnnotator.class))
+                    .isTrue();
+        } finally {
+            annotator.unmount();
+        }
+    }
+
+    @Test
+    public void closedServiceRejectsDocuments() throws IOException {
+        StopWordsAnnotator annotator = new StopWordsAnnotator(properties());
+        try {
+            StopWordsService service = new StopWordsService(annotator, 1);
+            service.close();
+            assertThrows(RejectedExecutionException.class, () -> service.submit(document()));
+        } finally {
+            annotator.unmount();
+        }
+    }
+
+    @Test
+    public void nonPositiveConcurrencyIsRejected() throws IOException {
+        StopWordsAnnotator annotator = new StopWordsAnnotator(properties());
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new StopWordsService(annotator, 0));
+        } finally {
+            annotator.unmount();
+        }
+    }
+}
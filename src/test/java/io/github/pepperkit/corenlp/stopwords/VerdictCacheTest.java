@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 PepperKit
+ *
+ * This software may be modified and distributed under the terms
+ * of the MIT license. See the LICENSE file for details.
+ */
+package io.github.pepperkit.corenlp.stopwords;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerdictCacheTest {
+    private final StopWordRule listRule =
+            StopWordRule.wordIn(new CaseInsensitiveStringSet(Collections.singletonList("the")));
+    private final StopWordRule posRule = StopWordRule.posCategoryIn(Collections.singleton("DT"));
+
+    @Test
+    public void decisionsAreCachedByAnnotationsReadByRules() {
+        VerdictCache cache = new VerdictCache(64, Arrays.asList(listRule, posRule), new VerdictCache.Counters());
+
+        assertThat(cache.get(cache.fingerprint(token("The", "the", "DT")))).isEqualTo(VerdictCache.MISS);
+        cache.put(cache.fingerprint(token("The", "the", "DT")), true);
+        cache.put(cache.fingerprint(token("cat", "cat", "NN")), false);
+
+        assertThat(cache.get(cache.fingerprint(token("The", "the", "DT")))).isEqualTo(1);
+        assertThat(cache.get(cache.fingerprint(token("cat", "cat", "NN")))).isZero();
+        // the lemma is not read by the rules, so it is not a part of the key
+        assertThat(cache.get(cache.fingerprint(token("cat", "cats", "NN")))).isZero();
+        assertThat(cache.get(cache.fingerprint(token("The", "the", "NN")))).isEqualTo(VerdictCache.MISS);
+        assertThat(cache.get(cache.fingerprint(token("the", "the", "DT")))).isEqualTo(VerdictCache.MISS);
+    }
+
+    @Test
+    public void cacheIsBoundedAndKeepsReferencedDecisions() {
+        VerdictCache cache = new VerdictCache(100, Collections.singletonList(listRule), new VerdictCache.Counters());
+        CoreLabel frequent = token("the", "the", "DT");
+        cache.put(cache.fingerprint(frequent), true);
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(cache.get(cache.fingerprint(frequent))).isEqualTo(1);
+            cache.put(cache.fingerprint(token("word" + i, "word", "NN")), false);
+        }
+
+        int cached = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (cache.get(cache.fingerprint(token("word" + i, "word", "NN"))) != VerdictCache.MISS) {
+                cached++;
+            }
+        }
+        assertThat(cache.capacity()).isEqualTo(128);
+        assertThat(cached).isLessThan(cache.capacity());
+        assertThat(cache.put(cache.fingerprint(token("other", "other", "NN")), false)).isTrue();
+    }
+
+    @Test
+    public void cachedChainDecidesAsUncachedOne() {
+        List<StopWordRule> rules = Arrays.asList(listRule, posRule, StopWordRule.wordShorterThan(2));
+        RuleChain uncached = RuleChain.cheapestFirst(rules);
+        VerdictCache.Counters counters = new VerdictCache.Counters();
+        RuleChain cached = RuleChain.cheapestFirst(rules, 16, counters);
+        String[][] tokens = {{"The", "DT"}, {"cat", "NN"}, {"a", "DT"}, {"I", "PRP"}, {"the", "NN"}, {"that", "DT"}};
+
+        for (int round = 0; round < 3; round++) {
+            for (String[] t : tokens) {
+                CoreLabel token = token(t[0], t[0], t[1]);
+                assertThat(cached.test(token)).isEqualTo(uncached.test(token));
+            }
+        }
+        // only the tokens not stopped by the length and POS rules ("cat" and "the" tagged NN) are looked up
+        assertThat(counters.snapshot().missCount()).isEqualTo(2);
+        assertThat(counters.snapshot().hitCount()).isEqualTo(4);
+        assertThat(cached.reorder(Arrays.asList(cached.get(2), cached.get(1), cached.get(0))).verdicts())
+                .isSameAs(cached.verdicts());
+    }
+
+    @Test
+    public void onlyCostlyRulesAreCached() {
+        VerdictCache.Counters counters = new VerdictCache.Counters();
+
+        assertThat(RuleChain.cheapestFirst(Arrays.asList(posRule, StopWordRule.wordShorterThan(2)), 16, counters)
+                .verdicts()).isNull();
+        assertThat(RuleChain.cheapestFirst(Arrays.asList(posRule, listRule), 16, counters).verdicts()).isNotNull();
+    }
+
+    private static CoreLabel token(String word, String lemma, String tag) {
+        CoreLabel token = new CoreLabel();
+        token.setWord(word);
+        token.setLemma(lemma);
+        token.setTag(tag);
+        return token;
+    }
+}